@@ -0,0 +1,35 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer;
+
+/**
+ * Hash functions shared by the samplers and reporters that spread trace IDs over tables, shards or sampling ranges
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * Finalization step of MurmurHash3, spreads every bit of the value over the whole result
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
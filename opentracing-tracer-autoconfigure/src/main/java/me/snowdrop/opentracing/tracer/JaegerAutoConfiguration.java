@@ -20,10 +20,10 @@ import com.uber.jaeger.Tracer.Builder;
 import com.uber.jaeger.metrics.InMemoryStatsReporter;
 import com.uber.jaeger.metrics.Metrics;
 import com.uber.jaeger.metrics.NullStatsReporter;
+import com.uber.jaeger.metrics.StatsFactory;
+import com.uber.jaeger.metrics.StatsFactoryImpl;
 import com.uber.jaeger.metrics.StatsReporter;
-import com.uber.jaeger.reporters.CompositeReporter;
 import com.uber.jaeger.reporters.LoggingReporter;
-import com.uber.jaeger.reporters.RemoteReporter;
 import com.uber.jaeger.reporters.Reporter;
 import com.uber.jaeger.samplers.ConstSampler;
 import com.uber.jaeger.samplers.HttpSamplingManager;
@@ -31,9 +31,50 @@ import com.uber.jaeger.samplers.ProbabilisticSampler;
 import com.uber.jaeger.samplers.RateLimitingSampler;
 import com.uber.jaeger.samplers.RemoteControlledSampler;
 import com.uber.jaeger.samplers.Sampler;
+import com.uber.jaeger.senders.Sender;
+import com.uber.jaeger.senders.ThriftSender;
 import com.uber.jaeger.tracerresolver.JaegerTracerResolver;
+import com.uber.jaeger.utils.SystemClock;
 import io.opentracing.contrib.tracerresolver.TracerResolver;
+import me.snowdrop.opentracing.tracer.baggage.BaggageLimits;
+import me.snowdrop.opentracing.tracer.clocks.AnchoredClock;
+import me.snowdrop.opentracing.tracer.clocks.CachedClock;
+import me.snowdrop.opentracing.tracer.customizers.ArrayStackScopeManagerJaegerTracerCustomizer;
 import me.snowdrop.opentracing.tracer.customizers.B3CodecJaegerTracerCustomizer;
+import me.snowdrop.opentracing.tracer.customizers.BaggageLimitsJaegerTracerCustomizer;
+import me.snowdrop.opentracing.tracer.customizers.ClockJaegerTracerCustomizer;
+import me.snowdrop.opentracing.tracer.jfr.FlightRecorderReporter;
+import me.snowdrop.opentracing.tracer.jfr.FlightRecorderSender;
+import me.snowdrop.opentracing.tracer.jfr.FlightRecorderStatsFactory;
+import me.snowdrop.opentracing.tracer.jfr.FlightRecorderSupport;
+import me.snowdrop.opentracing.tracer.metrics.PipelineStatsFactory;
+import me.snowdrop.opentracing.tracer.reporters.AsyncLoggingReporter;
+import me.snowdrop.opentracing.tracer.reporters.BudgetReporter;
+import me.snowdrop.opentracing.tracer.reporters.CompactingReporter;
+import me.snowdrop.opentracing.tracer.reporters.InspectableCompositeReporter;
+import me.snowdrop.opentracing.tracer.reporters.InspectableRemoteReporter;
+import me.snowdrop.opentracing.tracer.reporters.LaneReporter;
+import me.snowdrop.opentracing.tracer.reporters.ReloadableReporter;
+import me.snowdrop.opentracing.tracer.reporters.ShardedReporter;
+import me.snowdrop.opentracing.tracer.reporters.SharedReporter;
+import me.snowdrop.opentracing.tracer.reporters.SpanFileReporter;
+import me.snowdrop.opentracing.tracer.samplers.BudgetSampler;
+import me.snowdrop.opentracing.tracer.samplers.KeyedRateLimiter;
+import me.snowdrop.opentracing.tracer.samplers.ReloadableSampler;
+import me.snowdrop.opentracing.tracer.samplers.RemoteSamplingPoller;
+import me.snowdrop.opentracing.tracer.samplers.TraceIdRatioSampler;
+import me.snowdrop.opentracing.tracer.senders.BatchingThriftSender;
+import me.snowdrop.opentracing.tracer.senders.CircuitBreakerSender;
+import me.snowdrop.opentracing.tracer.senders.HealthTrackingSender;
+import me.snowdrop.opentracing.tracer.senders.InstrumentedSender;
+import me.snowdrop.opentracing.tracer.senders.OtlpHttpSender;
+import me.snowdrop.opentracing.tracer.senders.PooledThriftSender;
+import me.snowdrop.opentracing.tracer.senders.TagGuard;
+import me.snowdrop.opentracing.tracer.senders.ThriftSpanPool;
+import me.snowdrop.opentracing.tracer.senders.UnixSocketSender;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -43,13 +84,21 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.AbstractEnvironment;
+import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.StreamSupport;
 
 /**
@@ -73,68 +122,323 @@ public class JaegerAutoConfiguration {
         @Bean
         public io.opentracing.Tracer tracer(JaegerConfigurationProperties jaegerConfigurationProperties,
                                             Sampler sampler,
-                                            Reporter reporter) {
+                                            Reporter reporter,
+                                            Metrics metrics) {
 
-            final Builder builder = new Builder(jaegerConfigurationProperties.getServiceName(), reporter, sampler);
+            final Builder builder = new Builder(jaegerConfigurationProperties.getServiceName(), reporter, sampler)
+                    .withMetrics(metrics);
 
             tracerCustomizers.forEach(c -> c.customize(builder));
 
             return builder.build();
         }
 
+        /**
+         * The tracers of the services listed under opentracing.jaeger.services, which all report through the
+         * reporter of the main tracer so that the number of threads, connections and buffers stays the same.
+         * Their samplers are reloadable under the same conditions as the main sampler
+         */
+        @Bean
+        public JaegerServiceTracers jaegerServiceTracers(JaegerConfigurationProperties properties,
+                                                         Reporter reporter,
+                                                         Metrics metrics,
+                                                         Environment environment) {
+            Map<String, com.uber.jaeger.Tracer> tracers = new LinkedHashMap<>();
+            Map<String, Sampler> samplers = new LinkedHashMap<>();
+            Reporter sharedReporter = new SharedReporter(reporter);
+            boolean reloadable = properties.getReload().isEnabled() || isEndpointEnabled(environment);
+            createServiceSamplers(properties, metrics).forEach((name, created) -> {
+                Sampler sampler = reloadable ? new ReloadableSampler(created) : created;
+                final Builder builder = new Builder(getServiceName(name, properties.getServices().get(name)),
+                        sharedReporter, sampler)
+                        .withMetrics(metrics);
+
+                tracerCustomizers.forEach(c -> c.customize(builder));
+
+                tracers.put(name, builder.build());
+                samplers.put(name, sampler);
+            });
+            return new JaegerServiceTracers(tracers, samplers);
+        }
+
         @ConditionalOnMissingBean
         @Bean
         public Reporter reporter(JaegerConfigurationProperties properties,
                                  Metrics metrics,
+                                 PipelineStatsFactory statsFactory,
                                  @Autowired(required = false) ReporterAppender reporterAppender) {
+            Reporter reporter = createReporter(properties, metrics, statsFactory, reporterAppender);
+            if (properties.getReload().isEnabled()) {
+                return new ReloadableReporter(reporter);
+            }
+            return reporter;
+        }
+
+        private Reporter createReporter(JaegerConfigurationProperties properties,
+                                        Metrics metrics,
+                                        StatsFactory statsFactory,
+                                        ReporterAppender reporterAppender) {
             List<Reporter> reporters = new LinkedList<>();
+            TagGuard tagGuard = createTagGuard(properties, statsFactory);
+
+            if (!properties.getSharding().getEndpoints().isEmpty()) {
+                reporters.add(getShardedReporter(metrics, statsFactory, properties, tagGuard));
+            } else {
+                JaegerConfigurationProperties.HttpSender httpSender =
+                        properties.getHttpSender();
+                if (!StringUtils.isEmpty(httpSender.getUrl()) && !httpSender.isDisable()) {
+                    reporters.add(getHttpReporter(metrics, statsFactory, properties, httpSender, tagGuard));
+                }
+
+                JaegerConfigurationProperties.UdpSender udpSender =
+                        properties.getUdpSender();
+                if (!StringUtils.isEmpty(udpSender.getHost()) && !udpSender.isDisable()) {
+                    reporters.add(getUdpReporter(metrics, statsFactory, properties, udpSender, tagGuard));
+                }
+
+                JaegerConfigurationProperties.UdsSender udsSender =
+                        properties.getUdsSender();
+                if (!StringUtils.isEmpty(udsSender.getPath()) && !udsSender.isDisable()) {
+                    Sender sender = getUdsSender(properties, udsSender.getPath(), tagGuard);
+                    reporters.add(getRemoteReporter(metrics, statsFactory, properties,
+                            withCircuitBreaker(sender, statsFactory, properties)));
+                }
+
+                JaegerConfigurationProperties.OtlpSender otlpSender =
+                        properties.getOtlpSender();
+                if (!StringUtils.isEmpty(otlpSender.getUrl()) && !otlpSender.isDisable()) {
+                    reporters.add(getOtlpReporter(metrics, statsFactory, properties, otlpSender, tagGuard));
+                }
+            }
 
-            JaegerConfigurationProperties.RemoteReporterProperties remoteReporterProperties =
-                    properties.getRemoteReporterProperties();
-            JaegerConfigurationProperties.HttpSender httpSender =
-                    properties.getHttpSender();
-            if (!StringUtils.isEmpty(httpSender.getUrl()) && !httpSender.isDisable()) {
-                reporters.add(getHttpReporter(metrics, remoteReporterProperties, httpSender));
+            if (properties.isLogSpans()) {
+                JaegerConfigurationProperties.SpanLogging spanLogging = properties.getSpanLogging();
+                reporters.add(spanLogging.isAsync()
+                        ? new AsyncLoggingReporter(spanLogging.getQueueSize(), metrics)
+                        : new LoggingReporter());
             }
 
-            JaegerConfigurationProperties.UdpSender udpSender =
-                    properties.getUdpSender();
-            if (!StringUtils.isEmpty(udpSender.getHost()) && !udpSender.isDisable()) {
-                reporters.add(getUdpReporter(metrics, remoteReporterProperties, udpSender));
+            JaegerConfigurationProperties.SpanFile spanFile = properties.getSpanFile();
+            if (!StringUtils.isEmpty(spanFile.getDirectory())) {
+                reporters.add(new SpanFileReporter(new File(spanFile.getDirectory()), spanFile.getSegmentSize(),
+                        spanFile.getMaxSegments(), spanFile.getQueueSize(), spanFile.getCommitInterval(), metrics));
             }
 
-            if (properties.isLogSpans()) {
-                reporters.add(new LoggingReporter());
+            if (isFlightRecorderEnabled(properties)) {
+                reporters.add(new FlightRecorderReporter(properties.getJfr().getMinSpanDuration()));
             }
 
             if (reporterAppender != null) {
-                reporterAppender.append(reporters);
+                if (properties.getReload().isEnabled()) {
+                    // the appender hands the same reporters to every reload, closing a previous chain must not close them
+                    List<Reporter> appended = new LinkedList<>();
+                    reporterAppender.append(appended);
+                    for (Reporter appendedReporter : appended) {
+                        reporters.add(new SharedReporter(appendedReporter));
+                    }
+                } else {
+                    reporterAppender.append(reporters);
+                }
+            }
+
+            Reporter reporter = new InspectableCompositeReporter(reporters.toArray(new Reporter[reporters.size()]));
+
+            JaegerConfigurationProperties.Budget budget = properties.getBudget();
+            if (budget.isEnabled() && !StringUtils.isEmpty(budget.getTag())) {
+                reporter = new BudgetReporter(reporter, budget.getTag(), keyedRateLimiter(budget),
+                        budget.getMaxTrackedTraces());
+            }
+
+            JaegerConfigurationProperties.Compaction compaction = properties.getCompaction();
+            if (compaction.isEnabled()) {
+                reporter = new CompactingReporter(reporter, compaction.getMaxChildrenPerOperation(),
+                        compaction.getMaxTrackedParents(), compaction.getFlushInterval());
             }
 
-            return new CompositeReporter(reporters.toArray(new Reporter[reporters.size()]));
+            return reporter;
         }
 
         private Reporter getUdpReporter(Metrics metrics,
-                JaegerConfigurationProperties.RemoteReporterProperties remoteReporterProperties,
-                JaegerConfigurationProperties.UdpSender udpSenderProperties) {
-            com.uber.jaeger.senders.UdpSender udpSender = new com.uber.jaeger.senders.UdpSender(udpSenderProperties.getHost(), udpSenderProperties.getPort(),
-                    udpSenderProperties.getMaxPacketSize());
-            return new RemoteReporter(udpSender, remoteReporterProperties.getFlushInterval(),
-                    remoteReporterProperties.getMaxQueueSize(), metrics);
+                StatsFactory statsFactory,
+                JaegerConfigurationProperties properties,
+                JaegerConfigurationProperties.UdpSender udpSenderProperties,
+                TagGuard tagGuard) {
+            Sender sender = getUdpSender(properties, udpSenderProperties.getHost(), udpSenderProperties.getPort(), tagGuard);
+            return getRemoteReporter(metrics, statsFactory, properties, withCircuitBreaker(sender, statsFactory, properties));
+        }
+
+        private Sender getUdpSender(JaegerConfigurationProperties properties, String host, int port, TagGuard tagGuard) {
+            int maxPacketSize = properties.getUdpSender().getMaxPacketSize();
+            com.uber.jaeger.senders.UdpSender udpSender = new com.uber.jaeger.senders.UdpSender(host, port, maxPacketSize);
+            return decorateSender(udpSender, new TCompactProtocol.Factory(), maxPacketSize, properties, tagGuard);
         }
 
         private Reporter getHttpReporter(Metrics metrics,
-                JaegerConfigurationProperties.RemoteReporterProperties remoteReporterProperties,
-                JaegerConfigurationProperties.HttpSender httpSenderProperties) {
-            com.uber.jaeger.senders.HttpSender httpSender = new com.uber.jaeger.senders.HttpSender(httpSenderProperties.getUrl(), httpSenderProperties.getMaxPayload());
-            return new RemoteReporter(httpSender, remoteReporterProperties.getFlushInterval(),
-                    remoteReporterProperties.getMaxQueueSize(), metrics);
+                StatsFactory statsFactory,
+                JaegerConfigurationProperties properties,
+                JaegerConfigurationProperties.HttpSender httpSenderProperties,
+                TagGuard tagGuard) {
+            Sender sender = getHttpSender(properties, httpSenderProperties.getUrl(), tagGuard);
+            return getRemoteReporter(metrics, statsFactory, properties, withCircuitBreaker(sender, statsFactory, properties));
+        }
+
+        private Sender getHttpSender(JaegerConfigurationProperties properties, String url, TagGuard tagGuard) {
+            int maxPayload = properties.getHttpSender().getMaxPayload();
+            com.uber.jaeger.senders.HttpSender httpSender = new com.uber.jaeger.senders.HttpSender(url, maxPayload);
+            return decorateSender(httpSender, new TBinaryProtocol.Factory(), maxPayload, properties, tagGuard);
+        }
+
+        private Sender getUdsSender(JaegerConfigurationProperties properties, String path, TagGuard tagGuard) {
+            int maxBatchSize = properties.getUdsSender().getMaxBatchSize();
+            UnixSocketSender udsSender = new UnixSocketSender(path, maxBatchSize);
+            return decorateSender(udsSender, new TBinaryProtocol.Factory(), maxBatchSize, properties, tagGuard);
+        }
+
+        private Reporter getOtlpReporter(Metrics metrics,
+                StatsFactory statsFactory,
+                JaegerConfigurationProperties properties,
+                JaegerConfigurationProperties.OtlpSender otlpSenderProperties,
+                TagGuard tagGuard) {
+            Sender sender = new InstrumentedSender(withFlightRecorder(new OtlpHttpSender(otlpSenderProperties.getUrl(),
+                    otlpSenderProperties.getMaxPayload(), tagGuard), properties));
+            return getRemoteReporter(metrics, statsFactory, properties, withCircuitBreaker(sender, statsFactory, properties));
+        }
+
+        /**
+         * Stop serializing and sending spans for a while when the sender keeps failing.
+         * Not used for sharded endpoints, whose traces are moved to the other endpoints instead
+         */
+        private Sender withCircuitBreaker(Sender sender,
+                                          StatsFactory statsFactory,
+                                          JaegerConfigurationProperties properties) {
+            JaegerConfigurationProperties.CircuitBreaker circuitBreaker = properties.getCircuitBreaker();
+            if (!circuitBreaker.isEnabled()) {
+                return sender;
+            }
+            return new CircuitBreakerSender(sender, circuitBreaker.getFailureThreshold(),
+                    circuitBreaker.getBackoff(), circuitBreaker.getMaxBackoff(), statsFactory);
+        }
+
+        private Reporter getRemoteReporter(Metrics metrics,
+                                           StatsFactory statsFactory,
+                                           JaegerConfigurationProperties properties,
+                                           Sender sender) {
+            JaegerConfigurationProperties.RemoteReporterProperties remoteReporter = properties.getRemoteReporterProperties();
+            JaegerConfigurationProperties.PriorityLanes priorityLanes = properties.getPriorityLanes();
+            if (priorityLanes.isEnabled() || remoteReporter.getMaxQueueBytes() > 0) {
+                return new LaneReporter(sender, remoteReporter.getFlushInterval(),
+                        priorityLanes.isEnabled() ? priorityLanes.getQueueSize() : 0,
+                        remoteReporter.getMaxQueueSize(), priorityLanes.getSlowThreshold(),
+                        remoteReporter.getMaxQueueBytes(),
+                        (long) (remoteReporter.getMaxQueueBytes() * priorityLanes.getReservedBytesRatio()),
+                        metrics, statsFactory);
+            }
+            return new InspectableRemoteReporter(sender, remoteReporter.getFlushInterval(),
+                    remoteReporter.getMaxQueueSize(), metrics);
+        }
+
+        /**
+         * Create a reporter with its own queue and sender for every endpoint listed in
+         * opentracing.jaeger.sharding.endpoints, endpoints are either HTTP collector URLs, udp://host:port agent addresses
+         * or unix:///path agent sockets
+         */
+        private Reporter getShardedReporter(Metrics metrics,
+                                            StatsFactory statsFactory,
+                                            JaegerConfigurationProperties properties,
+                                            TagGuard tagGuard) {
+            JaegerConfigurationProperties.Sharding sharding = properties.getSharding();
+            List<ShardedReporter.Shard> shards = new ArrayList<>();
+            for (String endpoint : sharding.getEndpoints()) {
+                URI uri = URI.create(endpoint.trim());
+                Sender sender;
+                if ("udp".equals(uri.getScheme())) {
+                    sender = getUdpSender(properties, uri.getHost(), uri.getPort(), tagGuard);
+                } else if ("unix".equals(uri.getScheme())) {
+                    sender = getUdsSender(properties, uri.getPath(), tagGuard);
+                } else if ("http".equals(uri.getScheme()) || "https".equals(uri.getScheme())) {
+                    sender = getHttpSender(properties, uri.toString(), tagGuard);
+                } else {
+                    throw new IllegalArgumentException("Unsupported sharding endpoint " + endpoint
+                            + ", expected an http, https, udp or unix URI");
+                }
+
+                HealthTrackingSender healthTrackingSender = new HealthTrackingSender(sender,
+                        sharding.getFailureThreshold(), sharding.getBackoff(), sharding.getMaxBackoff());
+                shards.add(new ShardedReporter.Shard(endpoint,
+                        getRemoteReporter(metrics, statsFactory, properties, healthTrackingSender), healthTrackingSender));
+            }
+            return new ShardedReporter(shards);
+        }
+
+        /**
+         * Wrap the Thrift sender according to the configuration options
+         * The protocol factory and packet size need to be the ones the sender was created with
+         */
+        private Sender decorateSender(ThriftSender sender,
+                                      TProtocolFactory protocolFactory,
+                                      int maxPacketSize,
+                                      JaegerConfigurationProperties properties,
+                                      TagGuard tagGuard) {
+            Sender decorated = sender;
+
+            JaegerConfigurationProperties.SpanPool spanPoolProperties = properties.getSpanPool();
+            if (spanPoolProperties.isEnabled()) {
+                ThriftSpanPool pool = new ThriftSpanPool(spanPoolProperties.getMaxSize(),
+                        spanPoolProperties.isLeakDetection(), tagGuard);
+                decorated = new PooledThriftSender(sender, protocolFactory, maxPacketSize, pool);
+            } else if (tagGuard != null || !properties.getServices().isEmpty()) {
+                // batches that keep the spans of several services apart
+                decorated = new BatchingThriftSender(sender, protocolFactory, maxPacketSize, tagGuard);
+            }
+
+            return new InstrumentedSender(withFlightRecorder(decorated, properties));
+        }
+
+        private Sender withFlightRecorder(Sender sender, JaegerConfigurationProperties properties) {
+            if (!isFlightRecorderEnabled(properties)) {
+                return sender;
+            }
+            return new FlightRecorderSender(sender);
+        }
+
+        private boolean isFlightRecorderEnabled(JaegerConfigurationProperties properties) {
+            if (!properties.getJfr().isEnabled()) {
+                return false;
+            }
+            if (!FlightRecorderSupport.isAvailable()) {
+                throw new IllegalStateException("opentracing.jaeger.jfr.enabled requires a Java version providing jdk.jfr, "
+                        + "Java 11 or Java 8 from update 262");
+            }
+            return true;
+        }
+
+        /**
+         * @return the guard shared by the remote senders, or null when opentracing.jaeger.tag-guard is not enabled
+         */
+        private TagGuard createTagGuard(JaegerConfigurationProperties properties, StatsFactory statsFactory) {
+            JaegerConfigurationProperties.TagGuard tagGuard = properties.getTagGuard();
+            if (!tagGuard.isEnabled()) {
+                return null;
+            }
+            return new TagGuard(tagGuard.getMaxValueLength(), tagGuard.isHashLongValues(),
+                    tagGuard.getMaxKeys(), tagGuard.getMaxValuesPerKey(), tagGuard.getResetInterval(), statsFactory);
         }
 
         @ConditionalOnMissingBean
         @Bean
-        public Metrics reporterMetrics(StatsReporter statsReporter) {
-            return Metrics.fromStatsReporter(statsReporter);
+        public Metrics reporterMetrics(PipelineStatsFactory pipelineStatsFactory) {
+            return new Metrics(pipelineStatsFactory);
+        }
+
+        @ConditionalOnMissingBean
+        @Bean
+        public PipelineStatsFactory pipelineStatsFactory(StatsReporter statsReporter,
+                                                         JaegerConfigurationProperties properties) {
+            StatsFactory statsFactory = new StatsFactoryImpl(statsReporter);
+            if (isFlightRecorderEnabled(properties)) {
+                statsFactory = new FlightRecorderStatsFactory(statsFactory);
+            }
+            return new PipelineStatsFactory(statsFactory);
         }
 
         @ConditionalOnMissingBean
@@ -152,13 +456,136 @@ public class JaegerAutoConfiguration {
             return new B3CodecJaegerTracerCustomizer();
         }
 
+        @ConditionalOnProperty(value = "opentracing.jaeger.arrayStackScopeManager.enabled", havingValue = "true")
+        @Bean
+        public JaegerTracerCustomizer arrayStackScopeManagerJaegerTracerCustomizer(JaegerConfigurationProperties properties) {
+            return new ArrayStackScopeManagerJaegerTracerCustomizer(properties.getArrayStackScopeManager().getInitialDepth());
+        }
+
+        @ConditionalOnProperty(value = "opentracing.jaeger.baggage.enabled", havingValue = "true")
+        @Bean
+        public JaegerTracerCustomizer baggageLimitsJaegerTracerCustomizer(JaegerConfigurationProperties properties) {
+            JaegerConfigurationProperties.Baggage baggage = properties.getBaggage();
+            return new BaggageLimitsJaegerTracerCustomizer(
+                    new BaggageLimits(baggage.getWhitelist(), baggage.getMaxKeys(), baggage.getMaxValueLength()),
+                    !properties.isEnableB3Propagation());
+        }
+
+        @ConditionalOnProperty(value = "opentracing.jaeger.clock.type")
+        @Bean
+        public JaegerTracerCustomizer clockJaegerTracerCustomizer(JaegerConfigurationProperties properties) {
+            JaegerConfigurationProperties.Clock clock = properties.getClock();
+            switch (clock.getType()) {
+                case "system":
+                    return new ClockJaegerTracerCustomizer(new SystemClock());
+                case "anchored":
+                    return new ClockJaegerTracerCustomizer(new AnchoredClock(clock.getReanchorInterval()));
+                case "cached":
+                    return new ClockJaegerTracerCustomizer(
+                            new CachedClock(new AnchoredClock(clock.getReanchorInterval()), clock.getResolution()));
+                default:
+                    throw new IllegalArgumentException("Unsupported clock type " + clock.getType()
+                            + ", expected system, anchored or cached");
+            }
+        }
+
+        @ConditionalOnProperty(value = "opentracing.jaeger.reload.enabled", havingValue = "true")
+        @Bean
+        public JaegerConfigurationReloader jaegerConfigurationReloader(ConfigurableEnvironment environment,
+                                                                       Sampler sampler,
+                                                                       Reporter reporter,
+                                                                       JaegerServiceTracers serviceTracers,
+                                                                       Metrics metrics,
+                                                                       PipelineStatsFactory statsFactory,
+                                                                       @Autowired(required = false) ReporterAppender reporterAppender) {
+            return new JaegerConfigurationReloader(environment, sampler, reporter, serviceTracers.getSamplers(),
+                    p -> createSampler(p, metrics),
+                    p -> createReporter(p, metrics, statsFactory, reporterAppender),
+                    p -> createServiceSamplers(p, metrics));
+        }
+
         /**
          * Decide on what Sampler to use based on the various configuration options in JaegerConfigurationProperties
          * Fallback to ConstSampler(true) when no Sampler is configured
          */
         @ConditionalOnMissingBean
         @Bean
-        public Sampler sampler(JaegerConfigurationProperties properties, Metrics metrics) {
+        public Sampler sampler(JaegerConfigurationProperties properties, Metrics metrics, Environment environment) {
+            Sampler sampler = createSampler(properties, metrics);
+            if (properties.getReload().isEnabled() || isEndpointEnabled(environment)) {
+                return new ReloadableSampler(sampler);
+            }
+            return sampler;
+        }
+
+        /**
+         * The jaeger actuator endpoint overrides the sampling rate through a ReloadableSampler,
+         * same conditions as JaegerEndpointAutoConfiguration which is processed after this configuration
+         */
+        private boolean isEndpointEnabled(Environment environment) {
+            return ClassUtils.isPresent("org.springframework.boot.actuate.endpoint.Endpoint", getClass().getClassLoader())
+                    && environment.getProperty("endpoints.jaeger.enabled", Boolean.class, false);
+        }
+
+        private Sampler createSampler(JaegerConfigurationProperties properties, Metrics metrics) {
+            return createSampler(properties, properties.getServiceName(), metrics, null);
+        }
+
+        /**
+         * The samplers of the services keyed by their identifier,
+         * the remote controlled ones share the polling thread of a single RemoteSamplingPoller
+         */
+        private Map<String, Sampler> createServiceSamplers(JaegerConfigurationProperties properties, Metrics metrics) {
+            String hostPort = properties.getRemoteControlledSampler().getHostPort();
+            RemoteSamplingPoller poller = StringUtils.isEmpty(hostPort)
+                    ? null : new RemoteSamplingPoller(new HttpSamplingManager(hostPort), metrics);
+
+            Map<String, Sampler> samplers = new LinkedHashMap<>();
+            properties.getServices().forEach((name, service) -> samplers.put(name,
+                    createServiceSampler(properties, service, getServiceName(name, service), metrics, poller)));
+            return samplers;
+        }
+
+        private static String getServiceName(String name, JaegerConfigurationProperties.Service service) {
+            return StringUtils.isEmpty(service.getServiceName()) ? name : service.getServiceName();
+        }
+
+        private Sampler createServiceSampler(JaegerConfigurationProperties properties,
+                                             JaegerConfigurationProperties.Service service,
+                                             String serviceName,
+                                             Metrics metrics,
+                                             RemoteSamplingPoller poller) {
+            if (service.getSamplingRate() != null) {
+                return new ProbabilisticSampler(service.getSamplingRate());
+            }
+
+            if (service.getMaxTracesPerSecond() != null) {
+                return new RateLimitingSampler(service.getMaxTracesPerSecond());
+            }
+
+            return createSampler(properties, serviceName, metrics, poller);
+        }
+
+        private Sampler createSampler(JaegerConfigurationProperties properties,
+                                      String serviceName,
+                                      Metrics metrics,
+                                      RemoteSamplingPoller poller) {
+            Sampler sampler = createConfiguredSampler(properties, serviceName, metrics, poller);
+
+            JaegerConfigurationProperties.Budget budget = properties.getBudget();
+            if (budget.isEnabled() && StringUtils.isEmpty(budget.getTag())) {
+                return new BudgetSampler(sampler, keyedRateLimiter(budget));
+            }
+            return sampler;
+        }
+
+        /**
+         * @param poller polls the remote controlled sampler instead of a RemoteControlledSampler thread, if not null
+         */
+        private Sampler createConfiguredSampler(JaegerConfigurationProperties properties,
+                                                String serviceName,
+                                                Metrics metrics,
+                                                RemoteSamplingPoller poller) {
             if (properties.getConstSampler().getDecision() != null) {
                 return new ConstSampler(properties.getConstSampler().getDecision());
             }
@@ -167,6 +594,10 @@ public class JaegerAutoConfiguration {
                 return new ProbabilisticSampler(properties.getProbabilisticSampler().getSamplingRate());
             }
 
+            if (properties.getTraceIdRatioSampler().getSamplingRate() != null) {
+                return new TraceIdRatioSampler(properties.getTraceIdRatioSampler().getSamplingRate());
+            }
+
             if (properties.getRateLimitingSampler().getMaxTracesPerSecond() != null) {
                 return new RateLimitingSampler(properties.getRateLimitingSampler().getMaxTracesPerSecond());
             }
@@ -176,15 +607,23 @@ public class JaegerAutoConfiguration {
                         = properties.getRemoteControlledSampler();
 
                 Sampler initialSampler = new ProbabilisticSampler(samplerProperties.getSamplingRate());
+                if (poller != null) {
+                    return poller.create(serviceName, initialSampler);
+                }
                 HttpSamplingManager manager = new HttpSamplingManager(samplerProperties.getHostPort());
 
-                return new RemoteControlledSampler(properties.getServiceName(), manager, initialSampler, metrics);
+                return new RemoteControlledSampler(serviceName, manager, initialSampler, metrics);
             }
 
             //fallback to sampling every trace
             return new ConstSampler(true);
         }
 
+        private KeyedRateLimiter keyedRateLimiter(JaegerConfigurationProperties.Budget budget) {
+            return new KeyedRateLimiter(budget.getPerKeyRate(), Math.max(1.0, budget.getPerKeyRate()),
+                    budget.getMaxKeys(), budget.getKeyExpiry());
+        }
+
     }
 
 
@@ -16,6 +16,11 @@ package me.snowdrop.opentracing.tracer;
 import com.uber.jaeger.Configuration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @ConfigurationProperties("opentracing.jaeger")
 public class JaegerConfigurationProperties {
 
@@ -71,6 +76,48 @@ public class JaegerConfigurationProperties {
 
     private final RemoteControlledSampler remoteControlledSampler = new RemoteControlledSampler();
 
+    private final SpanPool spanPool = new SpanPool();
+
+    private final ArrayStackScopeManager arrayStackScopeManager = new ArrayStackScopeManager();
+
+    private final TracingExecutors tracingExecutors = new TracingExecutors();
+
+    private final Compaction compaction = new Compaction();
+
+    private final Budget budget = new Budget();
+
+    private final Reload reload = new Reload();
+
+    private final Sharding sharding = new Sharding();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private final OtlpSender otlpSender = new OtlpSender();
+
+    private final SpanFile spanFile = new SpanFile();
+
+    private final SpanLogging spanLogging = new SpanLogging();
+
+    private final TraceIdRatioSampler traceIdRatioSampler = new TraceIdRatioSampler();
+
+    private final Baggage baggage = new Baggage();
+
+    private final TagGuard tagGuard = new TagGuard();
+
+    private final UdsSender udsSender = new UdsSender();
+
+    private final Jfr jfr = new Jfr();
+
+    private final Clock clock = new Clock();
+
+    private final PriorityLanes priorityLanes = new PriorityLanes();
+
+    /**
+     * Additional logical services of the application, keyed by an identifier.
+     * Each one gets its own tracer and sampler, all of them share the reporter of the main tracer
+     */
+    private final Map<String, Service> services = new LinkedHashMap<>();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -147,6 +194,82 @@ public class JaegerConfigurationProperties {
         return remoteControlledSampler;
     }
 
+    public SpanPool getSpanPool() {
+        return spanPool;
+    }
+
+    public ArrayStackScopeManager getArrayStackScopeManager() {
+        return arrayStackScopeManager;
+    }
+
+    public TracingExecutors getTracingExecutors() {
+        return tracingExecutors;
+    }
+
+    public Compaction getCompaction() {
+        return compaction;
+    }
+
+    public Budget getBudget() {
+        return budget;
+    }
+
+    public Reload getReload() {
+        return reload;
+    }
+
+    public Sharding getSharding() {
+        return sharding;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public OtlpSender getOtlpSender() {
+        return otlpSender;
+    }
+
+    public SpanFile getSpanFile() {
+        return spanFile;
+    }
+
+    public SpanLogging getSpanLogging() {
+        return spanLogging;
+    }
+
+    public TraceIdRatioSampler getTraceIdRatioSampler() {
+        return traceIdRatioSampler;
+    }
+
+    public Baggage getBaggage() {
+        return baggage;
+    }
+
+    public TagGuard getTagGuard() {
+        return tagGuard;
+    }
+
+    public UdsSender getUdsSender() {
+        return udsSender;
+    }
+
+    public Map<String, Service> getServices() {
+        return services;
+    }
+
+    public Jfr getJfr() {
+        return jfr;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public PriorityLanes getPriorityLanes() {
+        return priorityLanes;
+    }
+
 
 
     public static class RemoteReporterProperties {
@@ -155,6 +278,13 @@ public class JaegerConfigurationProperties {
 
         private int maxQueueSize = 100;
 
+        /**
+         * Estimated heap size in bytes of the spans waiting to be sent before new ones are dropped,
+         * replaces max-queue-size when greater than 0. Applies to every remote reporter,
+         * so with sharding each endpoint gets a budget of this size
+         */
+        private long maxQueueBytes = 0;
+
         public int getFlushInterval() {
             return flushInterval;
         }
@@ -171,6 +301,14 @@ public class JaegerConfigurationProperties {
             this.maxQueueSize = maxQueueSize;
         }
 
+        public long getMaxQueueBytes() {
+            return maxQueueBytes;
+        }
+
+        public void setMaxQueueBytes(long maxQueueBytes) {
+            this.maxQueueBytes = maxQueueBytes;
+        }
+
     }
 
     public static class HttpSender {
@@ -311,4 +449,861 @@ public class JaegerConfigurationProperties {
             this.samplingRate = samplingRate;
         }
     }
+
+    public static class SpanPool {
+
+        /**
+         * Convert spans into pooled Thrift objects before they are sent by the HTTP and UDP senders
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of idle Thrift spans kept for reuse by each sender
+         */
+        private int maxSize = 1000;
+
+        /**
+         * Log a warning whenever spans are not returned to the pool after a flush
+         * Only meant to be used while debugging since it tracks every span handed out by the pool
+         */
+        private boolean leakDetection = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public boolean isLeakDetection() {
+            return leakDetection;
+        }
+
+        public void setLeakDetection(boolean leakDetection) {
+            this.leakDetection = leakDetection;
+        }
+    }
+
+    public static class ArrayStackScopeManager {
+
+        /**
+         * Replace the default thread-local ScopeManager with one that keeps
+         * the active scopes of each thread in a pre-sized array and reuses the scope objects
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of nested scopes each thread can hold before its stack has to grow
+         */
+        private int initialDepth = 16;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialDepth() {
+            return initialDepth;
+        }
+
+        public void setInitialDepth(int initialDepth) {
+            this.initialDepth = initialDepth;
+        }
+    }
+
+    public static class TracingExecutors {
+
+        /**
+         * Propagate the active span to tasks run by the ThreadPoolTaskExecutor
+         * and SimpleAsyncTaskExecutor beans of the application
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class Compaction {
+
+        /**
+         * Collapse sibling spans with the same operation name into a single aggregate span before reporting them
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of children with the same operation name that are reported as is before they get collapsed
+         */
+        private int maxChildrenPerOperation = 10;
+
+        /**
+         * Number of parent spans whose children are tracked at the same time
+         */
+        private int maxTrackedParents = 10000;
+
+        /**
+         * Milliseconds after which aggregate spans are reported even if their parent has not finished
+         */
+        private int flushInterval = 5000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxChildrenPerOperation() {
+            return maxChildrenPerOperation;
+        }
+
+        public void setMaxChildrenPerOperation(int maxChildrenPerOperation) {
+            this.maxChildrenPerOperation = maxChildrenPerOperation;
+        }
+
+        public int getMaxTrackedParents() {
+            return maxTrackedParents;
+        }
+
+        public void setMaxTrackedParents(int maxTrackedParents) {
+            this.maxTrackedParents = maxTrackedParents;
+        }
+
+        public int getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(int flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+    }
+
+    public static class Budget {
+
+        /**
+         * Assign a separate tracing budget to each operation name, or to each value of {@link #tag} if set
+         */
+        private boolean enabled = false;
+
+        /**
+         * Span tag whose values the budget is assigned to. When set, traces over budget are dropped
+         * when reported. Otherwise the budget is applied to the sampling decision of each operation name
+         */
+        private String tag;
+
+        /**
+         * Traces per second granted to each key
+         */
+        private double perKeyRate = 1.0;
+
+        /**
+         * Number of keys that get a budget of their own, further keys only use budget left unspent by other keys
+         */
+        private int maxKeys = 1000;
+
+        /**
+         * Milliseconds after which the budget of an unused key is released
+         */
+        private long keyExpiry = 60000;
+
+        /**
+         * Size of the table remembering the budget decision of recent traces when {@link #tag} is set,
+         * so that all the spans of a trace are reported or dropped alike, rounded up to a power of two
+         */
+        private int maxTrackedTraces = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public void setTag(String tag) {
+            this.tag = tag;
+        }
+
+        public double getPerKeyRate() {
+            return perKeyRate;
+        }
+
+        public void setPerKeyRate(double perKeyRate) {
+            this.perKeyRate = perKeyRate;
+        }
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public long getKeyExpiry() {
+            return keyExpiry;
+        }
+
+        public void setKeyExpiry(long keyExpiry) {
+            this.keyExpiry = keyExpiry;
+        }
+
+        public int getMaxTrackedTraces() {
+            return maxTrackedTraces;
+        }
+
+        public void setMaxTrackedTraces(int maxTrackedTraces) {
+            this.maxTrackedTraces = maxTrackedTraces;
+        }
+    }
+
+    public static class Reload {
+
+        /**
+         * Make the Sampler and Reporter rebuild themselves from the Environment
+         * when Spring Cloud signals a change of the opentracing.jaeger properties, without restarting the tracer
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class Sharding {
+
+        /**
+         * Endpoints the spans are spread across, for example http://collector-1:14268/api/traces or udp://agent-1:6831.
+         * When set, every trace is sent to a single endpoint instead of the http-sender and udp-sender
+         */
+        private List<String> endpoints = new ArrayList<>();
+
+        /**
+         * Number of consecutive failures after which an endpoint stops receiving new traces
+         */
+        private int failureThreshold = 3;
+
+        /**
+         * Milliseconds an endpoint stops receiving new traces for after failing, doubled on every further failure
+         */
+        private long backoff = 1000;
+
+        /**
+         * Maximum number of milliseconds an endpoint stops receiving new traces for
+         */
+        private long maxBackoff = 60000;
+
+        public List<String> getEndpoints() {
+            return endpoints;
+        }
+
+        public void setEndpoints(List<String> endpoints) {
+            this.endpoints = endpoints;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public long getBackoff() {
+            return backoff;
+        }
+
+        public void setBackoff(long backoff) {
+            this.backoff = backoff;
+        }
+
+        public long getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+
+    public static class CircuitBreaker {
+
+        /**
+         * Stop serializing and sending spans for a while when the http-sender or udp-sender keeps failing
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of consecutive failures after which the circuit opens and spans are dropped
+         */
+        private int failureThreshold = 3;
+
+        /**
+         * Milliseconds the circuit stays open before the sender is tried again, doubled on every further failure
+         */
+        private long backoff = 1000;
+
+        /**
+         * Maximum number of milliseconds the circuit stays open
+         */
+        private long maxBackoff = 60000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public long getBackoff() {
+            return backoff;
+        }
+
+        public void setBackoff(long backoff) {
+            this.backoff = backoff;
+        }
+
+        public long getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+
+    public static class OtlpSender {
+
+        /**
+         * OTLP/HTTP traces endpoint of an OpenTelemetry collector, for example http://localhost:4318/v1/traces
+         */
+        private String url;
+
+        private int maxPayload = 1048576;
+
+        private boolean disable = false;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public int getMaxPayload() {
+            return maxPayload;
+        }
+
+        public void setMaxPayload(int maxPayload) {
+            this.maxPayload = maxPayload;
+        }
+
+        public boolean isDisable() {
+            return disable;
+        }
+
+        public void setDisable(boolean disable) {
+            this.disable = disable;
+        }
+    }
+
+    public static class SpanFile {
+
+        /**
+         * Directory the segment files are written to. Setting it enables the reporter
+         */
+        private String directory;
+
+        /**
+         * Size in bytes of every segment file
+         */
+        private int segmentSize = 64 * 1024 * 1024;
+
+        /**
+         * Number of segment files kept in the directory, the oldest ones are deleted
+         */
+        private int maxSegments = 16;
+
+        /**
+         * Number of finished spans waiting to be written, spans are dropped once it is full
+         */
+        private int queueSize = 10000;
+
+        /**
+         * Interval in milliseconds at which written spans are forced to disk
+         */
+        private long commitInterval = 1000;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public int getMaxSegments() {
+            return maxSegments;
+        }
+
+        public void setMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public long getCommitInterval() {
+            return commitInterval;
+        }
+
+        public void setCommitInterval(long commitInterval) {
+            this.commitInterval = commitInterval;
+        }
+    }
+
+    public static class SpanLogging {
+
+        /**
+         * Format and log the spans on a background thread instead of the thread finishing them
+         */
+        private boolean async = true;
+
+        /**
+         * Number of spans waiting to be logged, spans are dropped once it is full
+         */
+        private int queueSize = 1000;
+
+        public boolean isAsync() {
+            return async;
+        }
+
+        public void setAsync(boolean async) {
+            this.async = async;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+    }
+
+    public static class TraceIdRatioSampler {
+
+        /**
+         * Probability of sampling a trace, decided from a hash of the trace ID so that all the services
+         * configured with the same rate sample the same traces
+         */
+        private Double samplingRate;
+
+        public Double getSamplingRate() {
+            return samplingRate;
+        }
+
+        public void setSamplingRate(Double samplingRate) {
+            this.samplingRate = samplingRate;
+        }
+    }
+
+    public static class Baggage {
+
+        /**
+         * Enable the limits below
+         */
+        private boolean enabled = false;
+
+        /**
+         * Keys of the baggage items that can be set and propagated, any key is allowed if empty
+         */
+        private List<String> whitelist = new ArrayList<>();
+
+        /**
+         * Maximum number of baggage items propagated with a span, further items are dropped
+         */
+        private int maxKeys = 16;
+
+        /**
+         * Length baggage values are truncated to
+         */
+        private int maxValueLength = 2048;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getWhitelist() {
+            return whitelist;
+        }
+
+        public void setWhitelist(List<String> whitelist) {
+            this.whitelist = whitelist;
+        }
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public int getMaxValueLength() {
+            return maxValueLength;
+        }
+
+        public void setMaxValueLength(int maxValueLength) {
+            this.maxValueLength = maxValueLength;
+        }
+    }
+
+    public static class TagGuard {
+
+        /**
+         * Bound the length and the number of distinct values of the string tags sent by the HTTP and UDP senders
+         */
+        private boolean enabled = false;
+
+        /**
+         * Length string tag values are truncated to
+         */
+        private int maxValueLength = 256;
+
+        /**
+         * Replace values longer than maxValueLength with a hash of the complete value instead of truncating them
+         */
+        private boolean hashLongValues = false;
+
+        /**
+         * Number of tag keys whose distinct values are tracked separately,
+         * the values of the other keys are tracked together and limited to maxValuesPerKey as a whole
+         */
+        private int maxKeys = 1000;
+
+        /**
+         * Number of distinct values sent per tag key, further values are replaced with "<other>"
+         */
+        private int maxValuesPerKey = 1000;
+
+        /**
+         * Milliseconds after which the tracked keys and values are forgotten and counted again from scratch
+         */
+        private int resetInterval = 60000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxValueLength() {
+            return maxValueLength;
+        }
+
+        public void setMaxValueLength(int maxValueLength) {
+            this.maxValueLength = maxValueLength;
+        }
+
+        public boolean isHashLongValues() {
+            return hashLongValues;
+        }
+
+        public void setHashLongValues(boolean hashLongValues) {
+            this.hashLongValues = hashLongValues;
+        }
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public int getMaxValuesPerKey() {
+            return maxValuesPerKey;
+        }
+
+        public void setMaxValuesPerKey(int maxValuesPerKey) {
+            this.maxValuesPerKey = maxValuesPerKey;
+        }
+
+        public int getResetInterval() {
+            return resetInterval;
+        }
+
+        public void setResetInterval(int resetInterval) {
+            this.resetInterval = resetInterval;
+        }
+    }
+
+    public static class UdsSender {
+
+        /**
+         * Path of the Unix domain socket a local agent listens on. Requires Java 16 or later
+         */
+        private String path;
+
+        /**
+         * Size in bytes above which a batch is sent, batches are not limited by the size of a datagram
+         */
+        private int maxBatchSize = 1048576;
+
+        private boolean disable = false;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public boolean isDisable() {
+            return disable;
+        }
+
+        public void setDisable(boolean disable) {
+            this.disable = disable;
+        }
+    }
+
+    public static class Service {
+
+        /**
+         * The serviceName the tracer of this service uses, defaults to the identifier of the service
+         */
+        private String serviceName;
+
+        /**
+         * Use a probabilistic sampler with this rate for the service
+         */
+        private Double samplingRate;
+
+        /**
+         * Use a rate limiting sampler with this rate for the service.
+         * When neither this nor the sampling rate is set, the service is sampled like the main tracer
+         */
+        private Double maxTracesPerSecond;
+
+        public String getServiceName() {
+            return serviceName;
+        }
+
+        public void setServiceName(String serviceName) {
+            this.serviceName = serviceName;
+        }
+
+        public Double getSamplingRate() {
+            return samplingRate;
+        }
+
+        public void setSamplingRate(Double samplingRate) {
+            this.samplingRate = samplingRate;
+        }
+
+        public Double getMaxTracesPerSecond() {
+            return maxTracesPerSecond;
+        }
+
+        public void setMaxTracesPerSecond(Double maxTracesPerSecond) {
+            this.maxTracesPerSecond = maxTracesPerSecond;
+        }
+    }
+
+    public static class Jfr {
+
+        /**
+         * Record Flight Recorder events for spans, reporter flushes, dropped spans and sampler updates.
+         * Requires Java 11 or Java 8 from update 262, events only cost anything while a recording is running
+         */
+        private boolean enabled = false;
+
+        /**
+         * Duration in microseconds below which finished spans are not recorded
+         */
+        private long minSpanDuration = 0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMinSpanDuration() {
+            return minSpanDuration;
+        }
+
+        public void setMinSpanDuration(long minSpanDuration) {
+            this.minSpanDuration = minSpanDuration;
+        }
+    }
+
+    public static class Clock {
+
+        /**
+         * The clock the tracers take span timestamps from: system reads the wall clock and the nano ticks for every span,
+         * anchored reads the wall clock once and derives timestamps from the nano ticks, cached reads an anchored
+         * time that a background thread refreshes at the given resolution
+         */
+        private String type = "system";
+
+        /**
+         * Interval in milliseconds at which the anchored clock anchors itself to the wall clock again
+         */
+        private long reanchorInterval = 60000;
+
+        /**
+         * Interval in microseconds at which the cached clock refreshes its time
+         */
+        private long resolution = 1000;
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public long getReanchorInterval() {
+            return reanchorInterval;
+        }
+
+        public void setReanchorInterval(long reanchorInterval) {
+            this.reanchorInterval = reanchorInterval;
+        }
+
+        public long getResolution() {
+            return resolution;
+        }
+
+        public void setResolution(long resolution) {
+            this.resolution = resolution;
+        }
+    }
+
+    public static class PriorityLanes {
+
+        /**
+         * Queue the spans of the remote reporters in a priority lane for errors and slow spans and a normal lane for the others,
+         * the normal lane holds up to remote-reporter-properties.max-queue-size spans, or max-queue-bytes bytes
+         * minus the share reserved for the priority lane
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of spans the priority lane holds before new priority spans are dropped
+         */
+        private int queueSize = 100;
+
+        /**
+         * Duration in milliseconds from which spans go to the priority lane
+         */
+        private long slowThreshold = 1000;
+
+        /**
+         * Share of remote-reporter-properties.max-queue-bytes that only the priority lane may use,
+         * the priority lane may also use the rest of the budget
+         */
+        private double reservedBytesRatio = 0.25;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public long getSlowThreshold() {
+            return slowThreshold;
+        }
+
+        public void setSlowThreshold(long slowThreshold) {
+            this.slowThreshold = slowThreshold;
+        }
+
+        public double getReservedBytesRatio() {
+            return reservedBytesRatio;
+        }
+
+        public void setReservedBytesRatio(double reservedBytesRatio) {
+            this.reservedBytesRatio = reservedBytesRatio;
+        }
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer;
+
+import com.uber.jaeger.reporters.Reporter;
+import com.uber.jaeger.samplers.Sampler;
+import me.snowdrop.opentracing.tracer.reporters.ReloadableReporter;
+import me.snowdrop.opentracing.tracer.samplers.ReloadableSampler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.boot.bind.PropertiesConfigurationFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Rebuilds the Sampler and Reporter from the current Environment and swaps them into the running tracer,
+ * along with the samplers of the tracers of opentracing.jaeger.services. Services added to the configuration
+ * after the startup are ignored, the service tracers are only created once.
+ *
+ * The reload happens when {@link #reload()} is invoked or when Spring Cloud publishes an EnvironmentChangeEvent
+ * (for example after a refresh) that contains keys under {@code opentracing.jaeger}.
+ * The event is matched by name so that Spring Cloud does not need to be on the classpath
+ */
+public class JaegerConfigurationReloader implements SmartApplicationListener {
+
+    static final String ENVIRONMENT_CHANGE_EVENT = "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+
+    private static final Logger log = LoggerFactory.getLogger(JaegerConfigurationReloader.class);
+
+    private static final String PREFIX = "opentracing.jaeger";
+
+    private final ConfigurableEnvironment environment;
+    private final Sampler sampler;
+    private final Reporter reporter;
+    private final Map<String, Sampler> serviceSamplers;
+    private final Function<JaegerConfigurationProperties, Sampler> samplerFactory;
+    private final Function<JaegerConfigurationProperties, Reporter> reporterFactory;
+    private final Function<JaegerConfigurationProperties, Map<String, Sampler>> serviceSamplerFactory;
+
+    public JaegerConfigurationReloader(ConfigurableEnvironment environment,
+                                       Sampler sampler,
+                                       Reporter reporter,
+                                       Map<String, Sampler> serviceSamplers,
+                                       Function<JaegerConfigurationProperties, Sampler> samplerFactory,
+                                       Function<JaegerConfigurationProperties, Reporter> reporterFactory,
+                                       Function<JaegerConfigurationProperties, Map<String, Sampler>> serviceSamplerFactory) {
+        this.environment = environment;
+        this.sampler = sampler;
+        this.reporter = reporter;
+        this.serviceSamplers = serviceSamplers;
+        this.samplerFactory = samplerFactory;
+        this.reporterFactory = reporterFactory;
+        this.serviceSamplerFactory = serviceSamplerFactory;
+    }
+
+    public synchronized void reload() {
+        JaegerConfigurationProperties properties = bind();
+
+        if (sampler instanceof ReloadableSampler) {
+            ((ReloadableSampler) sampler).swap(samplerFactory.apply(properties));
+        }
+        if (reporter instanceof ReloadableReporter) {
+            ((ReloadableReporter) reporter).swap(reporterFactory.apply(properties));
+        }
+        if (!serviceSamplers.isEmpty()) {
+            serviceSamplerFactory.apply(properties).forEach((service, reloaded) -> {
+                Sampler serviceSampler = serviceSamplers.get(service);
+                if (serviceSampler instanceof ReloadableSampler) {
+                    ((ReloadableSampler) serviceSampler).swap(reloaded);
+                } else {
+                    reloaded.close();
+                }
+            });
+        }
+        log.info("Reloaded Jaeger tracer configuration, sampler={}, reporter={}", sampler, reporter);
+    }
+
+    private JaegerConfigurationProperties bind() {
+        JaegerConfigurationProperties properties = new JaegerConfigurationProperties();
+        PropertiesConfigurationFactory<JaegerConfigurationProperties> factory =
+                new PropertiesConfigurationFactory<>(properties);
+        factory.setPropertySources(environment.getPropertySources());
+        factory.setTargetName(PREFIX);
+        try {
+            factory.bindPropertiesToTarget();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to bind " + PREFIX + " properties", e);
+        }
+        return properties;
+    }
+
+    @Override
+    public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+        return ENVIRONMENT_CHANGE_EVENT.equals(eventType.getName());
+    }
+
+    @Override
+    public boolean supportsSourceType(Class<?> sourceType) {
+        return true;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        Object keys = new BeanWrapperImpl(event).getPropertyValue("keys");
+        if (keys instanceof Collection
+                && ((Collection<?>) keys).stream().noneMatch(key -> String.valueOf(key).startsWith(PREFIX))) {
+            return;
+        }
+        reload();
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE;
+    }
+}
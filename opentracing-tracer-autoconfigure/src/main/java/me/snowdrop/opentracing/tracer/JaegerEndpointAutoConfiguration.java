@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer;
+
+import com.uber.jaeger.reporters.Reporter;
+import com.uber.jaeger.samplers.Sampler;
+import me.snowdrop.opentracing.tracer.endpoints.JaegerEndpoint;
+import me.snowdrop.opentracing.tracer.endpoints.JaegerMvcEndpoint;
+import me.snowdrop.opentracing.tracer.metrics.PipelineStatsFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+
+/**
+ * Contributes the {@code jaeger} actuator endpoint when Spring Boot Actuator is on the classpath
+ * and {@code endpoints.jaeger.enabled} is {@code true}.
+ * The endpoint is opt-in, unlike the endpoints of Actuator, as it can change the sampling rate and flush the reporters
+ */
+@Configuration
+@ConditionalOnClass({Endpoint.class, com.uber.jaeger.Tracer.class})
+@AutoConfigureAfter(JaegerAutoConfiguration.class)
+public class JaegerEndpointAutoConfiguration {
+
+    @ConditionalOnBean({Sampler.class, Reporter.class})
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = "endpoints.jaeger.enabled", havingValue = "true")
+    @Bean
+    public JaegerEndpoint jaegerEndpoint(Sampler sampler,
+                                         Reporter reporter,
+                                         ObjectProvider<JaegerServiceTracers> serviceTracers,
+                                         ObjectProvider<PipelineStatsFactory> statsFactory) {
+        JaegerServiceTracers tracers = serviceTracers.getIfAvailable();
+        return new JaegerEndpoint(sampler,
+                tracers != null ? tracers.getSamplers() : Collections.<String, Sampler>emptyMap(),
+                reporter, statsFactory.getIfAvailable());
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication
+    @ConditionalOnClass(name = "org.springframework.web.servlet.DispatcherServlet")
+    public static class MvcConfiguration {
+
+        @ConditionalOnBean(JaegerEndpoint.class)
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(value = "endpoints.jaeger.enabled", havingValue = "true")
+        @Bean
+        public JaegerMvcEndpoint jaegerMvcEndpoint(JaegerEndpoint jaegerEndpoint) {
+            return new JaegerMvcEndpoint(jaegerEndpoint);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer;
+
+import com.uber.jaeger.samplers.Sampler;
+import io.opentracing.Tracer;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The tracers of the services declared under opentracing.jaeger.services, keyed by the identifier of the service.
+ * They are not exposed as Tracer beans so that the main tracer remains the one injected into the instrumentation
+ */
+public class JaegerServiceTracers implements DisposableBean {
+
+    private final Map<String, com.uber.jaeger.Tracer> tracers;
+
+    private final Map<String, Sampler> samplers;
+
+    /**
+     * @param samplers the samplers the tracers were built with, keyed the same way
+     */
+    public JaegerServiceTracers(Map<String, com.uber.jaeger.Tracer> tracers, Map<String, Sampler> samplers) {
+        this.tracers = Collections.unmodifiableMap(new LinkedHashMap<>(tracers));
+        this.samplers = Collections.unmodifiableMap(new LinkedHashMap<>(samplers));
+    }
+
+    /**
+     * @param service the identifier of the service in opentracing.jaeger.services
+     * @throws IllegalArgumentException when no such service is configured
+     */
+    public Tracer get(String service) {
+        Tracer tracer = tracers.get(service);
+        if (tracer == null) {
+            throw new IllegalArgumentException("No service " + service + " is configured under opentracing.jaeger.services");
+        }
+        return tracer;
+    }
+
+    public Map<String, ? extends Tracer> getTracers() {
+        return tracers;
+    }
+
+    public Map<String, Sampler> getSamplers() {
+        return samplers;
+    }
+
+    /**
+     * Closes the samplers of the tracers, their reporter is shared with the main tracer which closes it
+     */
+    @Override
+    public void destroy() {
+        tracers.values().forEach(com.uber.jaeger.Tracer::close);
+    }
+}
@@ -25,6 +25,9 @@ public interface ReporterAppender {
      * other than the ones that are auto-configured
      * based on the configuration
      * Implementation should only add reporters to the collection
+     *
+     * When opentracing.jaeger.reload.enabled is true, this method is called again on every reload and
+     * the reporters added are not closed by the tracer: they should be beans, closed by the application context
      */
     void append(Collection<Reporter> reporters);
 }
@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer;
+
+import me.snowdrop.opentracing.tracer.concurrent.TracingTaskDecorator;
+import me.snowdrop.opentracing.tracer.concurrent.TracingTaskDecoratorBeanPostProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Propagates the active span to the tasks executed by the Spring task executors of the application
+ *
+ * When the OpenTracing Spring Cloud instrumentation is on the classpath it already takes care of
+ * executors and {@code @Async} methods, so this configuration backs off
+ */
+@Configuration
+@ConditionalOnClass({io.opentracing.Tracer.class, TaskDecorator.class})
+@ConditionalOnMissingClass("io.opentracing.contrib.spring.cloud.async.ExecutorBeanPostProcessor")
+@ConditionalOnProperty(value = "opentracing.jaeger.tracingExecutors.enabled", havingValue = "true", matchIfMissing = true)
+@AutoConfigureAfter(value = JaegerAutoConfiguration.class,
+        name = "io.opentracing.contrib.spring.web.autoconfig.TracerAutoConfiguration")
+public class TracingExecutorAutoConfiguration {
+
+    @ConditionalOnBean(io.opentracing.Tracer.class)
+    @ConditionalOnMissingBean
+    @Bean
+    public TracingTaskDecorator tracingTaskDecorator(io.opentracing.Tracer tracer) {
+        return new TracingTaskDecorator(tracer);
+    }
+
+    @Bean
+    public static TracingTaskDecoratorBeanPostProcessor tracingTaskDecoratorBeanPostProcessor(
+            ObjectProvider<TracingTaskDecorator> tracingTaskDecorator) {
+        return new TracingTaskDecoratorBeanPostProcessor(tracingTaskDecorator);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.baggage;
+
+import com.uber.jaeger.SpanContext;
+import com.uber.jaeger.propagation.Codec;
+import io.opentracing.propagation.TextMap;
+
+/**
+ * Codec applying {@link BaggageLimits} to the baggage injected and extracted by its delegate,
+ * so that neither outgoing nor incoming requests carry more baggage than allowed.
+ * Contexts within the limits are passed through as is
+ */
+public class BaggageLimitingCodec implements Codec<TextMap> {
+
+    private final Codec<TextMap> delegate;
+    private final BaggageLimits limits;
+
+    public BaggageLimitingCodec(Codec<TextMap> delegate, BaggageLimits limits) {
+        this.delegate = delegate;
+        this.limits = limits;
+    }
+
+    @Override
+    public void inject(SpanContext spanContext, TextMap carrier) {
+        delegate.inject(limits.limit(spanContext), carrier);
+    }
+
+    @Override
+    public SpanContext extract(TextMap carrier) {
+        return limits.limit(delegate.extract(carrier));
+    }
+
+    @Override
+    public String toString() {
+        return "BaggageLimitingCodec(delegate=" + delegate + ", limits=" + limits + ")";
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.baggage;
+
+import com.uber.jaeger.SpanContext;
+import com.uber.jaeger.baggage.BaggageRestrictionManager;
+import com.uber.jaeger.baggage.Restriction;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Limits on the baggage of spans: the keys allowed, the number of items and the length of their values.
+ *
+ * The key whitelist and the value length are enforced by the tracer when baggage items are set,
+ * through this class being its {@link BaggageRestrictionManager}. The number of items can only be enforced
+ * when the baggage is propagated, see {@link BaggageLimitingCodec}
+ */
+public class BaggageLimits implements BaggageRestrictionManager {
+
+    private final Set<String> whitelist;
+    private final int maxKeys;
+    private final int maxValueLength;
+    private final Restriction allowed;
+    private final Restriction denied;
+
+    /**
+     * @param whitelist the keys allowed, any key is allowed if empty
+     * @param maxKeys maximum number of baggage items propagated
+     * @param maxValueLength length values are truncated to
+     */
+    public BaggageLimits(Collection<String> whitelist, int maxKeys, int maxValueLength) {
+        this.whitelist = new HashSet<>(whitelist);
+        this.maxKeys = maxKeys;
+        this.maxValueLength = maxValueLength;
+        this.allowed = Restriction.of(true, maxValueLength);
+        this.denied = Restriction.of(false, maxValueLength);
+    }
+
+    @Override
+    public Restriction getRestriction(String service, String key) {
+        return isAllowed(key) ? allowed : denied;
+    }
+
+    /**
+     * @return {@code context} itself when its baggage is within the limits, otherwise a copy with the baggage trimmed
+     */
+    public SpanContext limit(SpanContext context) {
+        if (context == null || isWithinLimits(context)) {
+            return context;
+        }
+
+        Map<String, String> baggage = new LinkedHashMap<>();
+        for (Map.Entry<String, String> item : context.baggageItems()) {
+            if (baggage.size() == maxKeys) {
+                break;
+            }
+            String value = item.getValue();
+            if (isAllowed(item.getKey()) && value != null) {
+                baggage.put(item.getKey(), value.length() > maxValueLength ? value.substring(0, maxValueLength) : value);
+            }
+        }
+        return context.withBaggage(baggage);
+    }
+
+    private boolean isWithinLimits(SpanContext context) {
+        int count = 0;
+        for (Map.Entry<String, String> item : context.baggageItems()) {
+            String value = item.getValue();
+            if (++count > maxKeys || !isAllowed(item.getKey()) || value == null || value.length() > maxValueLength) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isAllowed(String key) {
+        return whitelist.isEmpty() || whitelist.contains(key);
+    }
+
+    @Override
+    public String toString() {
+        return "BaggageLimits(whitelist=" + whitelist + ", maxKeys=" + maxKeys + ", maxValueLength=" + maxValueLength + ")";
+    }
+}
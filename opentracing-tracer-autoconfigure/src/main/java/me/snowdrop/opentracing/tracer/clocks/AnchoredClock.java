@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.clocks;
+
+import com.uber.jaeger.utils.Clock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Clock reading the wall clock only when it anchors itself, and deriving timestamps from {@link System#nanoTime()}
+ * in between, so that timestamps have a microsecond resolution.
+ *
+ * The first anchor is taken when the wall clock turns to a new millisecond, which the constructor waits for.
+ * The clock anchors itself again every {@code reanchorInterval} to follow the adjustments of the wall clock:
+ * the time it projects is kept if it falls within the millisecond the wall clock reads, and moved to the nearest
+ * end of that millisecond otherwise. The time never goes back, when it is moved backwards it holds until
+ * the new anchor catches up. The clock is therefore micros accurate, so the tracer reads a single timestamp
+ * when a span starts and when it finishes and computes the duration from them
+ */
+public class AnchoredClock implements Clock {
+
+    private static final long MILLISECOND_MICROS = 1000;
+
+    private final long reanchorIntervalNanos;
+    private final AtomicReference<Anchor> anchor;
+
+    /**
+     * @param reanchorIntervalMillis interval in milliseconds at which the clock anchors itself to the wall clock again
+     */
+    public AnchoredClock(long reanchorIntervalMillis) {
+        this.reanchorIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reanchorIntervalMillis);
+
+        long millis = System.currentTimeMillis();
+        long nextMillis;
+        while ((nextMillis = System.currentTimeMillis()) == millis) {
+            // spin for at most a millisecond, yielding would delay reading the nano ticks
+        }
+        long micros = TimeUnit.MILLISECONDS.toMicros(nextMillis);
+        this.anchor = new AtomicReference<>(new Anchor(System.nanoTime(), micros, micros));
+    }
+
+    @Override
+    public long currentTimeMicros() {
+        long nanoTime = System.nanoTime();
+        Anchor current = anchor.get();
+        if (nanoTime - current.nanoTime >= reanchorIntervalNanos) {
+            current = reanchor(current, nanoTime);
+        }
+        return current.project(nanoTime);
+    }
+
+    private Anchor reanchor(Anchor previous, long nanoTime) {
+        long projected = previous.project(nanoTime);
+        long wallClock = TimeUnit.MILLISECONDS.toMicros(wallClockMillis());
+        long micros = Math.min(Math.max(projected, wallClock), wallClock + MILLISECOND_MICROS - 1);
+        Anchor next = new Anchor(nanoTime, micros, projected);
+        if (anchor.compareAndSet(previous, next)) {
+            return next;
+        }
+        // another thread anchored the clock in the meantime, its anchor is used by everyone
+        return anchor.get();
+    }
+
+    /**
+     * The wall clock the clock anchors itself to
+     */
+    long wallClockMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long currentNanoTicks() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public boolean isMicrosAccurate() {
+        return true;
+    }
+
+    private static final class Anchor {
+
+        private final long nanoTime;
+        private final long micros;
+        // the time projected by the previous anchor, which is returned until this anchor catches up
+        private final long floor;
+
+        private Anchor(long nanoTime, long micros, long floor) {
+            this.nanoTime = nanoTime;
+            this.micros = micros;
+            this.floor = floor;
+        }
+
+        long project(long nanoTime) {
+            return Math.max(floor, micros + (nanoTime - this.nanoTime) / 1000);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AnchoredClock(reanchorIntervalMillis=" + TimeUnit.NANOSECONDS.toMillis(reanchorIntervalNanos) + ")";
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.clocks;
+
+import com.uber.jaeger.utils.Clock;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Clock returning a time that a background thread refreshes from another clock at a fixed resolution,
+ * reading the time is a read of a volatile field. Span timestamps and durations are only accurate to the resolution,
+ * which suits applications creating spans at very high rates more than it suits short spans.
+ * The time never goes back, even when the source does
+ */
+public class CachedClock implements Clock, Closeable {
+
+    private final Clock source;
+    private final long resolutionNanos;
+    private final Thread ticker;
+
+    private volatile long currentTimeMicros;
+    private volatile long currentNanoTicks;
+    private volatile boolean closed;
+
+    /**
+     * @param source the clock to read the time from
+     * @param resolutionMicros interval in microseconds at which the time is refreshed
+     */
+    public CachedClock(Clock source, long resolutionMicros) {
+        this.source = source;
+        this.resolutionNanos = TimeUnit.MICROSECONDS.toNanos(resolutionMicros);
+        tick();
+
+        ticker = new Thread(this::run, "jaeger.CachedClock-Ticker");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    private void run() {
+        while (!closed) {
+            LockSupport.parkNanos(resolutionNanos);
+            tick();
+        }
+    }
+
+    private void tick() {
+        currentNanoTicks = System.nanoTime();
+        // the source may step back when it follows the wall clock, durations are computed from this time
+        currentTimeMicros = Math.max(currentTimeMicros, source.currentTimeMicros());
+    }
+
+    @Override
+    public long currentTimeMicros() {
+        return currentTimeMicros;
+    }
+
+    @Override
+    public long currentNanoTicks() {
+        return currentNanoTicks;
+    }
+
+    @Override
+    public boolean isMicrosAccurate() {
+        return true;
+    }
+
+    /**
+     * Stops the thread refreshing the time, which stays as it was from then on
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(ticker);
+    }
+
+    @Override
+    public String toString() {
+        return "CachedClock(source=" + source + ", resolutionMicros="
+                + TimeUnit.NANOSECONDS.toMicros(resolutionNanos) + ")";
+    }
+}
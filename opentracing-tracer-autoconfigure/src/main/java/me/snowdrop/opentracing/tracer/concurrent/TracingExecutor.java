@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.concurrent;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that propagates the active span to the tasks it runs.
+ * Useful for the async methods of {@link java.util.concurrent.CompletableFuture}, for example
+ * {@code CompletableFuture.supplyAsync(supplier, new TracingExecutor(ForkJoinPool.commonPool(), decorator))}
+ */
+public class TracingExecutor implements Executor {
+
+    private final Executor delegate;
+    private final TracingTaskDecorator decorator;
+
+    public TracingExecutor(Executor delegate, TracingTaskDecorator decorator) {
+        this.delegate = delegate;
+        this.decorator = decorator;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(decorator.decorate(command));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.ScopeManager;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.Callable;
+
+/**
+ * {@link TaskDecorator} that makes the span which is active when a task is submitted
+ * the active span of the thread that executes the task.
+ * Tasks submitted while no span is active are returned as is,
+ * otherwise the span is the only state captured by the wrapper
+ */
+public class TracingTaskDecorator implements TaskDecorator {
+
+    private final Tracer tracer;
+
+    public TracingTaskDecorator(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Span span = tracer.activeSpan();
+        if (span == null) {
+            return runnable;
+        }
+        return new SpanActivatingRunnable(runnable, tracer.scopeManager(), span);
+    }
+
+    public <T> Callable<T> decorate(Callable<T> callable) {
+        Span span = tracer.activeSpan();
+        if (span == null) {
+            return callable;
+        }
+        return new SpanActivatingCallable<>(callable, tracer.scopeManager(), span);
+    }
+
+    private static final class SpanActivatingRunnable implements Runnable {
+
+        private final Runnable delegate;
+        private final ScopeManager scopeManager;
+        private final Span span;
+
+        SpanActivatingRunnable(Runnable delegate, ScopeManager scopeManager, Span span) {
+            this.delegate = delegate;
+            this.scopeManager = scopeManager;
+            this.span = span;
+        }
+
+        @Override
+        public void run() {
+            Scope scope = scopeManager.activate(span, false);
+            try {
+                delegate.run();
+            } finally {
+                scope.close();
+            }
+        }
+    }
+
+    private static final class SpanActivatingCallable<T> implements Callable<T> {
+
+        private final Callable<T> delegate;
+        private final ScopeManager scopeManager;
+        private final Span span;
+
+        SpanActivatingCallable(Callable<T> delegate, ScopeManager scopeManager, Span span) {
+            this.delegate = delegate;
+            this.scopeManager = scopeManager;
+            this.span = span;
+        }
+
+        @Override
+        public T call() throws Exception {
+            Scope scope = scopeManager.activate(span, false);
+            try {
+                return delegate.call();
+            } finally {
+                scope.close();
+            }
+        }
+    }
+}
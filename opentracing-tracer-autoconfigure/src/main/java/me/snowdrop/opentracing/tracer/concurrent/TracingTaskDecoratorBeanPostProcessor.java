@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.concurrent;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Registers a {@link TracingTaskDecorator} on the Spring task executors that support task decoration.
+ * A decorator that has already been configured on the executor is kept and applied after the tracing one
+ *
+ * The tracing decorator, and with it the tracer, is only looked up when the first task is decorated,
+ * so that initializing an executor does not create the whole tracer in the middle of it
+ */
+public class TracingTaskDecoratorBeanPostProcessor implements BeanPostProcessor {
+
+    private static final String TASK_DECORATOR_FIELD = "taskDecorator";
+
+    private final ObjectProvider<TracingTaskDecorator> tracingTaskDecorator;
+
+    public TracingTaskDecoratorBeanPostProcessor(ObjectProvider<TracingTaskDecorator> tracingTaskDecorator) {
+        this.tracingTaskDecorator = tracingTaskDecorator;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof ThreadPoolTaskExecutor) {
+            TaskDecorator decorator = decoratorFor(bean);
+            if (decorator != null) {
+                ((ThreadPoolTaskExecutor) bean).setTaskDecorator(decorator);
+            }
+        } else if (bean instanceof SimpleAsyncTaskExecutor) {
+            TaskDecorator decorator = decoratorFor(bean);
+            if (decorator != null) {
+                ((SimpleAsyncTaskExecutor) bean).setTaskDecorator(decorator);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        return bean;
+    }
+
+    private TaskDecorator decoratorFor(Object executor) {
+        Object existing = new DirectFieldAccessor(executor).getPropertyValue(TASK_DECORATOR_FIELD);
+        if (existing instanceof TracingTaskDecorator || existing instanceof LazyTracingTaskDecorator) {
+            return null;
+        }
+
+        TaskDecorator tracingDecorator = new LazyTracingTaskDecorator(tracingTaskDecorator);
+        if (existing instanceof TaskDecorator) {
+            TaskDecorator existingDecorator = (TaskDecorator) existing;
+            return runnable -> existingDecorator.decorate(tracingDecorator.decorate(runnable));
+        }
+        return tracingDecorator;
+    }
+
+    /**
+     * Resolves the tracing decorator on first use, tasks are returned as is when there is none
+     */
+    private static final class LazyTracingTaskDecorator implements TaskDecorator {
+
+        private final ObjectProvider<TracingTaskDecorator> provider;
+        private volatile TaskDecorator delegate;
+
+        LazyTracingTaskDecorator(ObjectProvider<TracingTaskDecorator> provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public Runnable decorate(Runnable runnable) {
+            TaskDecorator decorator = delegate;
+            if (decorator == null) {
+                TracingTaskDecorator tracingDecorator = provider.getIfAvailable();
+                decorator = tracingDecorator != null ? tracingDecorator : task -> task;
+                delegate = decorator;
+            }
+            return decorator.decorate(runnable);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.customizers;
+
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.propagation.TextMapCodec;
+import io.opentracing.propagation.Format;
+import me.snowdrop.opentracing.tracer.JaegerTracerCustomizer;
+import me.snowdrop.opentracing.tracer.baggage.BaggageLimitingCodec;
+import me.snowdrop.opentracing.tracer.baggage.BaggageLimits;
+
+public class BaggageLimitsJaegerTracerCustomizer implements JaegerTracerCustomizer {
+
+    private final BaggageLimits limits;
+    private final boolean limitHttpHeaders;
+
+    /**
+     * @param limitHttpHeaders whether to replace the HTTP headers codec, which must not be done
+     *                         when another codec (such as B3) is used for HTTP headers
+     */
+    public BaggageLimitsJaegerTracerCustomizer(BaggageLimits limits, boolean limitHttpHeaders) {
+        this.limits = limits;
+        this.limitHttpHeaders = limitHttpHeaders;
+    }
+
+    @Override
+    public void customize(Tracer.Builder builder) {
+        builder.withBaggageRestrictionManager(limits);
+
+        BaggageLimitingCodec textMapCodec = new BaggageLimitingCodec(new TextMapCodec(false), limits);
+        builder.registerInjector(Format.Builtin.TEXT_MAP, textMapCodec)
+               .registerExtractor(Format.Builtin.TEXT_MAP, textMapCodec);
+
+        if (limitHttpHeaders) {
+            BaggageLimitingCodec httpHeadersCodec = new BaggageLimitingCodec(new TextMapCodec(true), limits);
+            builder.registerInjector(Format.Builtin.HTTP_HEADERS, httpHeadersCodec)
+                   .registerExtractor(Format.Builtin.HTTP_HEADERS, httpHeadersCodec);
+        }
+    }
+}
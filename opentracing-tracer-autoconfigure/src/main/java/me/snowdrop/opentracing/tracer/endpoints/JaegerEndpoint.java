@@ -0,0 +1,200 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.endpoints;
+
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.reporters.Reporter;
+import com.uber.jaeger.samplers.ProbabilisticSampler;
+import com.uber.jaeger.samplers.Sampler;
+import com.uber.jaeger.senders.Sender;
+import me.snowdrop.opentracing.tracer.metrics.PipelineStatsFactory;
+import me.snowdrop.opentracing.tracer.reporters.DelegatingReporter;
+import me.snowdrop.opentracing.tracer.reporters.InspectableCompositeReporter;
+import me.snowdrop.opentracing.tracer.reporters.LaneReporter;
+import me.snowdrop.opentracing.tracer.reporters.SendingReporter;
+import me.snowdrop.opentracing.tracer.reporters.ShardedReporter;
+import me.snowdrop.opentracing.tracer.samplers.ReloadableSampler;
+import me.snowdrop.opentracing.tracer.senders.CircuitBreakerSender;
+import me.snowdrop.opentracing.tracer.senders.HealthTrackingSender;
+import me.snowdrop.opentracing.tracer.senders.InstrumentedSender;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing the live state of the tracer's sampler, reporters and senders.
+ * Also allows to temporarily force a sampling rate and to flush the reporters' queues
+ *
+ * The reporters and senders are found through the accessors of the auto-configured ones,
+ * reporters assembled by the application are only described by their toString
+ */
+@ConfigurationProperties(prefix = "endpoints.jaeger")
+public class JaegerEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+    private final Sampler sampler;
+    private final Map<String, Sampler> serviceSamplers;
+    private final Reporter reporter;
+    private final PipelineStatsFactory statsFactory;
+
+    /**
+     * @param serviceSamplers the samplers of the tracers of opentracing.jaeger.services, keyed by their identifier
+     */
+    public JaegerEndpoint(Sampler sampler, Map<String, Sampler> serviceSamplers, Reporter reporter,
+                          PipelineStatsFactory statsFactory) {
+        super("jaeger", true, false);
+        this.sampler = sampler;
+        this.serviceSamplers = serviceSamplers;
+        this.reporter = reporter;
+        this.statsFactory = statsFactory;
+    }
+
+    @Override
+    public Map<String, Object> invoke() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sampler", sampler.toString());
+        result.put("samplerReloadable", sampler instanceof ReloadableSampler);
+        if (!serviceSamplers.isEmpty()) {
+            Map<String, Object> services = new LinkedHashMap<>();
+            serviceSamplers.forEach((service, serviceSampler) -> services.put(service, serviceSampler.toString()));
+            result.put("serviceSamplers", services);
+        }
+        result.put("reporter", reporter.toString());
+
+        List<Object> senders = new ArrayList<>();
+        for (SendingReporter remoteReporter : getRemoteReporters()) {
+            Sender sender = remoteReporter.getSender();
+            Map<String, Object> health = new LinkedHashMap<>();
+            if (sender instanceof CircuitBreakerSender) {
+                health.put("circuit", ((CircuitBreakerSender) sender).getState());
+                sender = ((CircuitBreakerSender) sender).getDelegate();
+            }
+            if (sender instanceof HealthTrackingSender) {
+                health.put("available", ((HealthTrackingSender) sender).isAvailable());
+                sender = ((HealthTrackingSender) sender).getDelegate();
+            }
+
+            Map<String, Object> statistics = sender instanceof InstrumentedSender
+                    ? ((InstrumentedSender) sender).getStatistics()
+                    : new LinkedHashMap<>(Collections.singletonMap("sender", sender.toString()));
+            statistics.putAll(health);
+            senders.add(statistics);
+        }
+        result.put("senders", senders);
+
+        if (statsFactory != null) {
+            result.put("metrics", statsFactory.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * Sample traces with the probability {@code samplingRate} for the next {@code durationMillis} milliseconds,
+     * in the main tracer and in the tracers of the services
+     *
+     * @return false if the sampler is not reloadable and cannot be overridden, the auto-configured samplers are
+     * reloadable when the endpoint is enabled
+     */
+    public boolean forceSamplingRate(double samplingRate, long durationMillis) {
+        if (!(sampler instanceof ReloadableSampler)) {
+            return false;
+        }
+        ((ReloadableSampler) sampler).override(new ProbabilisticSampler(samplingRate), durationMillis);
+        for (Sampler serviceSampler : serviceSamplers.values()) {
+            if (serviceSampler instanceof ReloadableSampler) {
+                ((ReloadableSampler) serviceSampler).override(new ProbabilisticSampler(samplingRate), durationMillis);
+            }
+        }
+        return true;
+    }
+
+    public boolean clearSamplingRate() {
+        if (!(sampler instanceof ReloadableSampler)) {
+            return false;
+        }
+        ((ReloadableSampler) sampler).clearOverride();
+        for (Sampler serviceSampler : serviceSamplers.values()) {
+            if (serviceSampler instanceof ReloadableSampler) {
+                ((ReloadableSampler) serviceSampler).clearOverride();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ask every remote reporter to send the spans it has queued. The senders of Jaeger's RemoteReporters are flushed
+     * directly, bypassing their circuit breaker, as the reporter does not expose its queue
+     *
+     * @return the number of reporters asked to flush
+     */
+    public int flush() {
+        int flushed = 0;
+        for (SendingReporter remoteReporter : getRemoteReporters()) {
+            if (remoteReporter instanceof LaneReporter) {
+                ((LaneReporter) remoteReporter).flush();
+                flushed++;
+                continue;
+            }
+
+            InstrumentedSender sender = getInstrumentedSender(remoteReporter.getSender());
+            if (sender != null) {
+                try {
+                    sender.flush();
+                } catch (SenderException e) {
+                    // recorded in the statistics of the sender
+                }
+                flushed++;
+            }
+        }
+        return flushed;
+    }
+
+    private static InstrumentedSender getInstrumentedSender(Sender sender) {
+        while (true) {
+            if (sender instanceof CircuitBreakerSender) {
+                sender = ((CircuitBreakerSender) sender).getDelegate();
+            } else if (sender instanceof HealthTrackingSender) {
+                sender = ((HealthTrackingSender) sender).getDelegate();
+            } else {
+                return sender instanceof InstrumentedSender ? (InstrumentedSender) sender : null;
+            }
+        }
+    }
+
+    /**
+     * @return the reporters sending spans through a sender, either RemoteReporters or LaneReporters
+     */
+    private List<SendingReporter> getRemoteReporters() {
+        List<SendingReporter> remoteReporters = new ArrayList<>();
+        collectRemoteReporters(reporter, remoteReporters);
+        return remoteReporters;
+    }
+
+    private static void collectRemoteReporters(Reporter reporter, List<SendingReporter> remoteReporters) {
+        if (reporter instanceof SendingReporter) {
+            remoteReporters.add((SendingReporter) reporter);
+        } else if (reporter instanceof ShardedReporter) {
+            ((ShardedReporter) reporter).getReporters().forEach(r -> collectRemoteReporters(r, remoteReporters));
+        } else if (reporter instanceof DelegatingReporter) {
+            collectRemoteReporters(((DelegatingReporter) reporter).getDelegate(), remoteReporters);
+        } else if (reporter instanceof InspectableCompositeReporter) {
+            ((InspectableCompositeReporter) reporter).getReporters()
+                    .forEach(r -> collectRemoteReporters(r, remoteReporters));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.endpoints;
+
+import org.springframework.boot.actuate.endpoint.mvc.EndpointMvcAdapter;
+import org.springframework.boot.actuate.endpoint.mvc.HypermediaDisabled;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Collections;
+
+/**
+ * Exposes the controls of {@link JaegerEndpoint} over HTTP:
+ * {@code POST /jaeger/sampling-rate?rate=0.5&duration=60000}, {@code DELETE /jaeger/sampling-rate}
+ * and {@code POST /jaeger/flush}
+ */
+@ConfigurationProperties(prefix = "endpoints.jaeger")
+public class JaegerMvcEndpoint extends EndpointMvcAdapter {
+
+    private final JaegerEndpoint delegate;
+
+    public JaegerMvcEndpoint(JaegerEndpoint delegate) {
+        super(delegate);
+        this.delegate = delegate;
+    }
+
+    @PostMapping("/sampling-rate")
+    @ResponseBody
+    @HypermediaDisabled
+    public Object forceSamplingRate(@RequestParam double rate,
+                                    @RequestParam(defaultValue = "60000") long duration) {
+        if (!this.delegate.isEnabled()) {
+            return getDisabledResponse();
+        }
+        if (rate < 0.0 || rate > 1.0) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("message",
+                    "The sampling rate must be between 0.0 and 1.0"));
+        }
+        return this.delegate.forceSamplingRate(rate, duration)
+                ? ResponseEntity.ok().build() : notReloadable();
+    }
+
+    @DeleteMapping("/sampling-rate")
+    @ResponseBody
+    @HypermediaDisabled
+    public Object clearSamplingRate() {
+        if (!this.delegate.isEnabled()) {
+            return getDisabledResponse();
+        }
+        return this.delegate.clearSamplingRate()
+                ? ResponseEntity.ok().build() : notReloadable();
+    }
+
+    private ResponseEntity<?> notReloadable() {
+        return new ResponseEntity<>(Collections.singletonMap("message",
+                "The sampler is not reloadable, it was not created by the auto-configuration"),
+                HttpStatus.CONFLICT);
+    }
+
+    @PostMapping("/flush")
+    @ResponseBody
+    @HypermediaDisabled
+    public Object flush() {
+        if (!this.delegate.isEnabled()) {
+            return getDisabledResponse();
+        }
+        return Collections.singletonMap("flushedReporters", this.delegate.flush());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.jfr;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.SpanContext;
+import com.uber.jaeger.reporters.Reporter;
+
+/**
+ * Reporter recording a {@link SpanEvent} for every reported span lasting at least the given duration.
+ * Jaeger only reports spans once they are finished, the start of the span is part of the event
+ */
+public class FlightRecorderReporter implements Reporter {
+
+    private final long minDurationMicros;
+
+    /**
+     * @param minDurationMicros spans shorter than this are not recorded
+     */
+    public FlightRecorderReporter(long minDurationMicros) {
+        this.minDurationMicros = minDurationMicros;
+    }
+
+    @Override
+    public void report(Span span) {
+        if (span.getDuration() < minDurationMicros) {
+            return;
+        }
+
+        SpanEvent event = new SpanEvent();
+        if (event.isEnabled()) {
+            SpanContext context = span.context();
+            event.service = span.getTracer().getServiceName();
+            event.operation = span.getOperationName();
+            event.traceId = Long.toHexString(context.getTraceId());
+            event.spanId = Long.toHexString(context.getSpanId());
+            event.parentId = Long.toHexString(context.getParentId());
+            event.spanStart = span.getStart() / 1000;
+            event.spanDuration = span.getDuration();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+        return "FlightRecorderReporter(minDurationMicros=" + minDurationMicros + ")";
+    }
+}
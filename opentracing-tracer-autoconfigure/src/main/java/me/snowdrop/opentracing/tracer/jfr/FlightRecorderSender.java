@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.jfr;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.senders.Sender;
+
+/**
+ * Sender recording a {@link ReporterFlushEvent} for every flush of its delegate.
+ * Appending a span is only timed when the append made the delegate send a batch
+ */
+public class FlightRecorderSender implements Sender {
+
+    private final Sender delegate;
+
+    public FlightRecorderSender(Sender delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public int append(Span span) throws SenderException {
+        ReporterFlushEvent event = new ReporterFlushEvent();
+        if (!event.isEnabled()) {
+            return delegate.append(span);
+        }
+
+        event.begin();
+        try {
+            return commit(event, delegate.append(span));
+        } catch (SenderException e) {
+            throw commit(event, e);
+        }
+    }
+
+    @Override
+    public int flush() throws SenderException {
+        ReporterFlushEvent event = new ReporterFlushEvent();
+        if (!event.isEnabled()) {
+            return delegate.flush();
+        }
+
+        event.begin();
+        try {
+            return commit(event, delegate.flush());
+        } catch (SenderException e) {
+            throw commit(event, e);
+        }
+    }
+
+    @Override
+    public int close() throws SenderException {
+        return delegate.close();
+    }
+
+    private int commit(ReporterFlushEvent event, int sent) {
+        if (sent > 0) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.sender = delegate.toString();
+                event.sentSpans = sent;
+                event.commit();
+            }
+        }
+        return sent;
+    }
+
+    private SenderException commit(ReporterFlushEvent event, SenderException e) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.sender = delegate.toString();
+            event.failedSpans = e.getDroppedSpanCount();
+            event.error = e.getMessage();
+            event.commit();
+        }
+        return e;
+    }
+
+    @Override
+    public String toString() {
+        return "FlightRecorderSender(delegate=" + delegate + ")";
+    }
+}
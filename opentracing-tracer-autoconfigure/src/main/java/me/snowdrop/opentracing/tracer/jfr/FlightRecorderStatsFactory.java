@@ -0,0 +1,80 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.jfr;
+
+import com.uber.jaeger.metrics.Counter;
+import com.uber.jaeger.metrics.Gauge;
+import com.uber.jaeger.metrics.StatsFactory;
+import com.uber.jaeger.metrics.Timer;
+
+import java.util.Map;
+
+/**
+ * StatsFactory that turns the counters of dropped spans and of sampler updates into Flight Recorder events,
+ * in addition to forwarding every metric to its delegate.
+ * The other metrics are returned by the delegate as they are
+ */
+public class FlightRecorderStatsFactory implements StatsFactory {
+
+    private final StatsFactory delegate;
+
+    public FlightRecorderStatsFactory(StatsFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Counter createCounter(String name, Map<String, String> tags) {
+        Counter counter = delegate.createCounter(name, tags);
+        String state = tags.get("state");
+
+        // Metrics.reporterDropped and Metrics.reporterFailure
+        if (("jaeger.spans".equals(name) && "dropped".equals(state))
+                || ("jaeger.reporter-spans".equals(name) && "failure".equals(state))) {
+            return delta -> {
+                counter.inc(delta);
+                SpanDropEvent event = new SpanDropEvent();
+                if (event.isEnabled() && delta > 0) {
+                    event.reason = state;
+                    event.spans = delta;
+                    event.commit();
+                }
+            };
+        }
+
+        // Metrics.samplerUpdated, samplerQueryFailure and samplerParsingFailure
+        if ("jaeger.sampler".equals(name) && !"retrieved".equals(state)) {
+            String outcome = tags.containsKey("phase") ? tags.get("phase") + " " + state : state;
+            return delta -> {
+                counter.inc(delta);
+                SamplerUpdateEvent event = new SamplerUpdateEvent();
+                if (event.isEnabled()) {
+                    event.outcome = outcome;
+                    event.commit();
+                }
+            };
+        }
+
+        return counter;
+    }
+
+    @Override
+    public Timer createTimer(String name, Map<String, String> tags) {
+        return delegate.createTimer(name, tags);
+    }
+
+    @Override
+    public Gauge createGauge(String name, Map<String, String> tags) {
+        return delegate.createGauge(name, tags);
+    }
+}
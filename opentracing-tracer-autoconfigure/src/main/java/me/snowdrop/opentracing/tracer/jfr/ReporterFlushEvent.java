@@ -0,0 +1,45 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans the duration of a flush of a reporter's sender
+ */
+@Name(ReporterFlushEvent.NAME)
+@Label("Reporter Flush")
+@Category({"OpenTracing", "Jaeger"})
+@Description("A batch of spans was flushed by the sender of a reporter")
+@StackTrace(false)
+public class ReporterFlushEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "me.snowdrop.opentracing.ReporterFlush";
+
+    @Label("Sender")
+    String sender;
+
+    @Label("Sent Spans")
+    int sentSpans;
+
+    @Label("Failed Spans")
+    int failedSpans;
+
+    @Label("Error")
+    String error;
+}
@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded when a remote controlled sampler polled its sampling strategy
+ */
+@Name(SamplerUpdateEvent.NAME)
+@Label("Sampler Update")
+@Category({"OpenTracing", "Jaeger"})
+@Description("A remote controlled sampler changed its strategy or failed to retrieve it")
+@StackTrace(false)
+public class SamplerUpdateEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "me.snowdrop.opentracing.SamplerUpdate";
+
+    @Label("Outcome")
+    @Description("updated, or the failure that prevented the update")
+    String outcome;
+}
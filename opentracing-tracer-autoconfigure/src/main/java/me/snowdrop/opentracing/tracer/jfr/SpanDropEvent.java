@@ -0,0 +1,38 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded when spans are lost, either because the queue of a reporter is full or because its sender failed
+ */
+@Name(SpanDropEvent.NAME)
+@Label("Span Drop")
+@Category({"OpenTracing", "Jaeger"})
+@Description("Spans were dropped by a reporter")
+public class SpanDropEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "me.snowdrop.opentracing.SpanDrop";
+
+    @Label("Reason")
+    @Description("dropped when the queue was full, failure when the sender failed")
+    String reason;
+
+    @Label("Spans")
+    long spans;
+}
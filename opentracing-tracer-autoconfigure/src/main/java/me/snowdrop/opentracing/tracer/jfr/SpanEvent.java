@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+
+/**
+ * Recorded when a sampled span is finished, the span having started at {@link #spanStart}
+ */
+@Name(SpanEvent.NAME)
+@Label("Span")
+@Category({"OpenTracing", "Jaeger"})
+@Description("A sampled span was finished")
+@StackTrace(false)
+public class SpanEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "me.snowdrop.opentracing.Span";
+
+    @Label("Service")
+    String service;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Trace Id")
+    String traceId;
+
+    @Label("Span Id")
+    String spanId;
+
+    @Label("Parent Id")
+    String parentId;
+
+    @Label("Span Start")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    long spanStart;
+
+    @Label("Span Duration")
+    @Timespan(Timespan.MICROSECONDS)
+    long spanDuration;
+}
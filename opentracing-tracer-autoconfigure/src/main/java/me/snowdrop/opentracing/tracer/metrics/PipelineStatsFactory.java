@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.metrics;
+
+import com.uber.jaeger.metrics.Counter;
+import com.uber.jaeger.metrics.Gauge;
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.metrics.StatsFactory;
+import com.uber.jaeger.metrics.Timer;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StatsFactory that keeps the current value of every metric created through it, in addition to
+ * forwarding it to its delegate, so that the state of the tracer can be inspected at any time.
+ *
+ * Counters and timers are backed by {@link LongAdder}s and gauges by a volatile field,
+ * recording a value does not involve any lookup
+ */
+public class PipelineStatsFactory implements StatsFactory {
+
+    private final StatsFactory delegate;
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, GaugeValue> gauges = new ConcurrentHashMap<>();
+    private final Map<String, TimerValue> timers = new ConcurrentHashMap<>();
+
+    public PipelineStatsFactory(StatsFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Counter createCounter(String name, Map<String, String> tags) {
+        Counter counter = delegate.createCounter(name, tags);
+        LongAdder value = counters.computeIfAbsent(Metrics.addTagsToMetricName(name, tags), k -> new LongAdder());
+        return delta -> {
+            value.add(delta);
+            counter.inc(delta);
+        };
+    }
+
+    @Override
+    public Timer createTimer(String name, Map<String, String> tags) {
+        Timer timer = delegate.createTimer(name, tags);
+        TimerValue value = timers.computeIfAbsent(Metrics.addTagsToMetricName(name, tags), k -> new TimerValue());
+        return time -> {
+            value.record(time);
+            timer.durationMicros(time);
+        };
+    }
+
+    @Override
+    public Gauge createGauge(String name, Map<String, String> tags) {
+        Gauge gauge = delegate.createGauge(name, tags);
+        GaugeValue value = gauges.computeIfAbsent(Metrics.addTagsToMetricName(name, tags), k -> new GaugeValue());
+        return amount -> {
+            value.value = amount;
+            gauge.update(amount);
+        };
+    }
+
+    /**
+     * Current value of every counter and gauge, and the count and average duration in microseconds of every timer
+     */
+    public SortedMap<String, Long> snapshot() {
+        SortedMap<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, value) -> snapshot.put(name, value.sum()));
+        gauges.forEach((name, value) -> snapshot.put(name, value.value));
+        timers.forEach((name, value) -> {
+            long count = value.count.sum();
+            snapshot.put(name + ".count", count);
+            snapshot.put(name + ".avg", count == 0 ? 0 : value.totalMicros.sum() / count);
+        });
+        return snapshot;
+    }
+
+    private static final class GaugeValue {
+        private volatile long value;
+    }
+
+    private static final class TimerValue {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+
+        void record(long micros) {
+            count.increment();
+            totalMicros.add(micros);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.LogData;
+import com.uber.jaeger.Reference;
+import com.uber.jaeger.Span;
+import com.uber.jaeger.SpanContext;
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.reporters.Reporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replacement for {@link com.uber.jaeger.reporters.LoggingReporter} which keeps the formatting off the thread finishing the span.
+ *
+ * Spans are put in a bounded queue and logged as a single line of JSON by a background thread, which reuses the same builder
+ * for every span. Once the queue is half full only the traces whose id is a multiple of {@link #PRESSURE_SAMPLING}
+ * are still queued, so that the traces that do get logged remain complete, and spans are dropped when the queue is full.
+ * The number of spans not logged is itself logged from time to time
+ */
+public class AsyncLoggingReporter implements Reporter {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncLoggingReporter.class);
+
+    static final int PRESSURE_SAMPLING = 8;
+
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final Logger spanLog;
+    private final Metrics metrics;
+    private final BlockingQueue<Span> queue;
+    private final int pressureThreshold;
+    private final AtomicLong skipped = new AtomicLong();
+    private final StringBuilder builder = new StringBuilder(512);
+    private final Thread formatterThread;
+
+    private volatile boolean closed;
+
+    public AsyncLoggingReporter(int queueSize, Metrics metrics) {
+        this(LoggerFactory.getLogger(AsyncLoggingReporter.class), queueSize, metrics);
+    }
+
+    /**
+     * @param spanLog logger the spans are written to, at info level
+     * @param queueSize number of spans waiting to be logged before new ones are dropped
+     */
+    public AsyncLoggingReporter(Logger spanLog, int queueSize, Metrics metrics) {
+        this.spanLog = spanLog;
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.pressureThreshold = queueSize / 2;
+
+        this.formatterThread = new Thread(this::run, "jaeger.AsyncLoggingReporter-Formatter");
+        this.formatterThread.setDaemon(true);
+        this.formatterThread.start();
+    }
+
+    @Override
+    public void report(Span span) {
+        if (closed || !spanLog.isInfoEnabled()) {
+            return;
+        }
+        if (queue.size() >= pressureThreshold && span.context().getTraceId() % PRESSURE_SAMPLING != 0) {
+            skipped.incrementAndGet();
+            return;
+        }
+        if (!queue.offer(span)) {
+            skipped.incrementAndGet();
+            metrics.reporterDropped.inc(1);
+        }
+    }
+
+    /**
+     * Logs the spans still queued and stops the formatter thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            formatterThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Span> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Span first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                    for (Span span : batch) {
+                        spanLog.info(format(span));
+                    }
+                    batch.clear();
+                }
+                long skippedSpans = skipped.getAndSet(0);
+                if (skippedSpans > 0) {
+                    log.warn("{} spans were not logged because the logging queue was too long", skippedSpans);
+                }
+            } catch (InterruptedException e) {
+                closed = true;
+            } catch (RuntimeException e) {
+                batch.clear();
+                log.error("Could not log spans", e);
+            }
+        }
+    }
+
+    String format(Span span) {
+        SpanContext context = span.context();
+        builder.setLength(0);
+        builder.append("{\"traceId\":\"").append(Long.toHexString(context.getTraceId()))
+                .append("\",\"spanId\":\"").append(Long.toHexString(context.getSpanId()))
+                .append("\",\"parentId\":\"").append(Long.toHexString(context.getParentId()))
+                .append("\",\"flags\":").append(context.getFlags())
+                .append(",\"serviceName\":");
+        appendString(span.getTracer().getServiceName());
+        builder.append(",\"operationName\":");
+        appendString(span.getOperationName());
+        builder.append(",\"start\":").append(span.getStart())
+                .append(",\"duration\":").append(span.getDuration())
+                .append(",\"tags\":");
+        appendFields(span.getTags());
+
+        List<Reference> references = span.getReferences();
+        if (!references.isEmpty()) {
+            builder.append(",\"references\":[");
+            for (int i = 0; i < references.size(); i++) {
+                Reference reference = references.get(i);
+                builder.append(i > 0 ? ",{\"type\":" : "{\"type\":");
+                appendString(reference.getType());
+                builder.append(",\"spanId\":\"").append(Long.toHexString(reference.getSpanContext().getSpanId())).append("\"}");
+            }
+            builder.append(']');
+        }
+
+        List<LogData> logs = span.getLogs();
+        if (logs != null && !logs.isEmpty()) {
+            builder.append(",\"logs\":[");
+            for (int i = 0; i < logs.size(); i++) {
+                LogData logData = logs.get(i);
+                builder.append(i > 0 ? ",{\"time\":" : "{\"time\":").append(logData.getTime());
+                if (logData.getMessage() != null) {
+                    builder.append(",\"message\":");
+                    appendString(logData.getMessage());
+                }
+                if (logData.getFields() != null) {
+                    builder.append(",\"fields\":");
+                    appendFields(logData.getFields());
+                }
+                builder.append('}');
+            }
+            builder.append(']');
+        }
+        return builder.append('}').toString();
+    }
+
+    private void appendFields(Map<String, ?> fields) {
+        builder.append('{');
+        boolean first = true;
+        for (Map.Entry<String, ?> field : fields.entrySet()) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            appendString(field.getKey());
+            builder.append(':');
+            Object value = field.getValue();
+            if (value instanceof Boolean
+                    || (value instanceof Number && Double.isFinite(((Number) value).doubleValue()))) {
+                builder.append(value);
+            } else {
+                appendString(String.valueOf(value));
+            }
+        }
+        builder.append('}');
+    }
+
+    private void appendString(String value) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else {
+                builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncLoggingReporter(queueSize=" + (queue.size() + queue.remainingCapacity()) + ")";
+    }
+}
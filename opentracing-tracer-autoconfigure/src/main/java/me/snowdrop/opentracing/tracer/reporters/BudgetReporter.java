@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.reporters.Reporter;
+import me.snowdrop.opentracing.tracer.samplers.KeyedRateLimiter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static me.snowdrop.opentracing.tracer.Hashing.mix;
+
+/**
+ * Reporter stage that limits the traces reported per value of a span tag, for example a tenant identifier.
+ *
+ * The decision is made once per trace: the first span of a trace carrying the tag, or a baggage item of the same name,
+ * is charged against the budget of its value, and every later span of that trace is reported or dropped alike.
+ * Spans of traces without a decision yet are reported, which is why the value is best set as baggage on the root span
+ * so that every span of the trace carries it.
+ *
+ * The decisions are kept in a fixed size table of at least {@code maxTrackedTraces} entries indexed by a hash of the
+ * trace ID, which is read and updated without locking. A trace whose entry was taken by another trace is charged
+ * again by its next tagged span
+ */
+public class BudgetReporter implements DelegatingReporter {
+
+    private static final long DECISION_MASK = 3;
+    private static final long REPORTED = 1;
+    private static final long DROPPED = 2;
+    private static final int MAX_DECISIONS = 1 << 24;
+
+    private final Reporter delegate;
+    private final String tagKey;
+    private final KeyedRateLimiter rateLimiter;
+    private final AtomicLongArray decisions;
+    private final int decisionsMask;
+
+    public BudgetReporter(Reporter delegate, String tagKey, KeyedRateLimiter rateLimiter, int maxTrackedTraces) {
+        this.delegate = delegate;
+        this.tagKey = tagKey;
+        this.rateLimiter = rateLimiter;
+
+        int size = Math.max(2, Math.min(MAX_DECISIONS, maxTrackedTraces));
+        size = Integer.highestOneBit(size - 1) << 1;
+        this.decisions = new AtomicLongArray(size);
+        this.decisionsMask = size - 1;
+    }
+
+    @Override
+    public void report(Span span) {
+        if (isWithinBudget(span)) {
+            delegate.report(span);
+        }
+    }
+
+    private boolean isWithinBudget(Span span) {
+        long hash = mix(span.context().getTraceId());
+        int index = (int) (hash >>> 32) & decisionsMask;
+        long fingerprint = hash & ~DECISION_MASK;
+
+        long entry = decisions.get(index);
+        if ((entry & ~DECISION_MASK) == fingerprint && (entry & DECISION_MASK) != 0) {
+            return (entry & DECISION_MASK) == REPORTED;
+        }
+
+        Object value = span.getTags().get(tagKey);
+        if (value == null) {
+            value = span.getBaggageItem(tagKey);
+        }
+        if (value == null) {
+            return true;
+        }
+
+        boolean decision = rateLimiter.checkCredit(value.toString());
+        long decided = fingerprint | (decision ? REPORTED : DROPPED);
+        while (!decisions.compareAndSet(index, entry, decided)) {
+            entry = decisions.get(index);
+            // another span of the trace may have been charged in the meantime, the first decision stands
+            if ((entry & ~DECISION_MASK) == fingerprint && (entry & DECISION_MASK) != 0) {
+                return (entry & DECISION_MASK) == REPORTED;
+            }
+        }
+        return decision;
+    }
+
+    @Override
+    public Reporter getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        return "BudgetReporter(delegate=" + delegate + ", tagKey=" + tagKey + ")";
+    }
+}
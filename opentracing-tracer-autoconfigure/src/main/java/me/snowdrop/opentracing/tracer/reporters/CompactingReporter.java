@@ -0,0 +1,314 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.SpanContext;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.reporters.Reporter;
+import com.uber.jaeger.samplers.ConstSampler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static me.snowdrop.opentracing.tracer.Hashing.mix;
+
+/**
+ * Reporter stage that collapses sibling spans with the same operation name into a single aggregate span.
+ *
+ * The first {@code maxChildrenPerOperation} children of a parent with a given operation name are reported as is,
+ * the following ones are only accounted for in an aggregate span which is reported when the parent finishes
+ * (or at the latest after {@code flushInterval} milliseconds, for parents that live in another process).
+ * The aggregate span is a child of the same parent, has the same operation name and carries
+ * the number of collapsed spans along with their total, minimum and maximum duration as tags.
+ *
+ * Children are counted in a fixed size table indexed by a hash of their trace, parent and operation name,
+ * so nothing is allocated for a child until its operation repeats more than {@code maxChildrenPerOperation} times.
+ * Colliding entries replace each other, which can only delay the compaction.
+ * Aggregate spans are handed to the delegate directly, they do not go through the tracer a second time
+ */
+public class CompactingReporter implements DelegatingReporter {
+
+    public static final String COUNT_TAG = "compaction.count";
+    public static final String TOTAL_DURATION_TAG = "compaction.duration.total";
+    public static final String MIN_DURATION_TAG = "compaction.duration.min";
+    public static final String MAX_DURATION_TAG = "compaction.duration.max";
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int MIN_COUNTERS = 64;
+    private static final int MAX_COUNTERS = 1 << 18;
+
+    private final Reporter delegate;
+    private final int maxChildrenPerOperation;
+    private final int maxTrackedParents;
+    private final long flushIntervalNanos;
+    private final AtomicLongArray childCounts;
+    private final int childCountsMask;
+    private final Map<ParentKey, Siblings> parents = new ConcurrentHashMap<>();
+    private final Map<Tracer, Tracer> aggregateTracers = new ConcurrentHashMap<>();
+    private final Timer flushTimer;
+
+    /**
+     * @param delegate reporter that receives the spans that are not collapsed and the aggregate spans
+     * @param maxChildrenPerOperation number of children with the same operation name a parent may have
+     *                                before they are collapsed
+     * @param maxTrackedParents number of parents whose children are tracked at the same time,
+     *                          children of any further parent are reported as is
+     * @param flushInterval milliseconds after which aggregates are reported even if their parent has not finished
+     */
+    public CompactingReporter(Reporter delegate, int maxChildrenPerOperation, int maxTrackedParents, int flushInterval) {
+        this.delegate = delegate;
+        this.maxChildrenPerOperation = maxChildrenPerOperation;
+        this.maxTrackedParents = maxTrackedParents;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+
+        int counters = Math.max(MIN_COUNTERS, Math.min(MAX_COUNTERS / 4, maxTrackedParents) * 4);
+        counters = Integer.highestOneBit(counters - 1) << 1;
+        this.childCounts = new AtomicLongArray(counters);
+        this.childCountsMask = counters - 1;
+
+        this.flushTimer = new Timer("jaeger.CompactingReporter-FlushTimer", true /* isDaemon */);
+        this.flushTimer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                flushExpired(System.nanoTime());
+            }
+        }, flushInterval, flushInterval);
+    }
+
+    @Override
+    public void report(Span span) {
+        SpanContext context = span.context();
+
+        if (!parents.isEmpty()) {
+            Siblings children = parents.remove(new ParentKey(context.getTraceId(), context.getSpanId()));
+            if (children != null) {
+                children.flush();
+            }
+        }
+
+        if (context.getParentId() == 0 || !collapse(span, context)) {
+            delegate.report(span);
+        }
+    }
+
+    @Override
+    public Reporter getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void close() {
+        flushTimer.cancel();
+        for (Iterator<Siblings> it = parents.values().iterator(); it.hasNext(); ) {
+            Siblings children = it.next();
+            it.remove();
+            children.flush();
+        }
+        delegate.close();
+    }
+
+    void flushExpired(long now) {
+        for (Iterator<Siblings> it = parents.values().iterator(); it.hasNext(); ) {
+            Siblings children = it.next();
+            if (now - children.createdNanos >= flushIntervalNanos) {
+                it.remove();
+                children.flush();
+            }
+        }
+    }
+
+    /**
+     * @return true if the span was accounted for in an aggregate and must not be reported
+     */
+    private boolean collapse(Span span, SpanContext context) {
+        if (countChild(context.getTraceId(), context.getParentId(), span.getOperationName()) <= maxChildrenPerOperation) {
+            return false;
+        }
+
+        ParentKey key = new ParentKey(context.getTraceId(), context.getParentId());
+        Siblings children = parents.get(key);
+        if (children == null) {
+            if (parents.size() >= maxTrackedParents) {
+                return false;
+            }
+            children = parents.computeIfAbsent(key, k -> new Siblings(k));
+        }
+        return children.add(span);
+    }
+
+    /**
+     * @return number of children with the given operation name seen for the parent, including this one
+     */
+    private long countChild(long traceId, long parentId, String operationName) {
+        long hash = mix(mix(traceId * 31 + parentId) + operationName.hashCode());
+        int index = (int) hash & childCountsMask;
+        long fingerprint = hash & ~COUNT_MASK;
+
+        while (true) {
+            long entry = childCounts.get(index);
+            long count = (entry & ~COUNT_MASK) == fingerprint ? entry & COUNT_MASK : 0;
+            if (count == COUNT_MASK) {
+                return count;
+            }
+            if (childCounts.compareAndSet(index, entry, fingerprint | (count + 1))) {
+                return count + 1;
+            }
+        }
+    }
+
+    /**
+     * Tracer that reports to the delegate, with the same service name and tags as the tracer of the collapsed spans
+     */
+    private Tracer aggregateTracer(Tracer tracer) {
+        return aggregateTracers.computeIfAbsent(tracer, t -> {
+            Tracer.Builder builder = new Tracer.Builder(t.getServiceName(), delegate, new ConstSampler(true));
+            for (Map.Entry<String, ?> tag : t.tags().entrySet()) {
+                Object value = tag.getValue();
+                if (value instanceof Boolean) {
+                    builder.withTag(tag.getKey(), (Boolean) value);
+                } else if (value instanceof Number) {
+                    builder.withTag(tag.getKey(), (Number) value);
+                } else {
+                    builder.withTag(tag.getKey(), String.valueOf(value));
+                }
+            }
+            return builder.build();
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "CompactingReporter(delegate=" + delegate
+                + ", maxChildrenPerOperation=" + maxChildrenPerOperation + ")";
+    }
+
+    private static final class ParentKey {
+        private final long traceId;
+        private final long spanId;
+
+        ParentKey(long traceId, long spanId) {
+            this.traceId = traceId;
+            this.spanId = spanId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ParentKey)) {
+                return false;
+            }
+            ParentKey other = (ParentKey) o;
+            return traceId == other.traceId && spanId == other.spanId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(traceId) + Long.hashCode(spanId);
+        }
+    }
+
+    private final class Siblings {
+        private final ParentKey parent;
+        private final long createdNanos = System.nanoTime();
+        private final Map<String, Aggregate> byOperation = new HashMap<>();
+        private boolean flushed;
+
+        Siblings(ParentKey parent) {
+            this.parent = parent;
+        }
+
+        synchronized boolean add(Span span) {
+            if (flushed) {
+                return false;
+            }
+
+            String operationName = span.getOperationName();
+            Aggregate aggregate = byOperation.get(operationName);
+            if (aggregate == null) {
+                aggregate = new Aggregate(operationName);
+                byOperation.put(operationName, aggregate);
+            }
+            aggregate.add(span);
+            return true;
+        }
+
+        void flush() {
+            List<Aggregate> aggregates = new ArrayList<>();
+            synchronized (this) {
+                flushed = true;
+                for (Aggregate aggregate : byOperation.values()) {
+                    if (aggregate.count > 0) {
+                        aggregates.add(aggregate);
+                    }
+                }
+            }
+
+            for (Aggregate aggregate : aggregates) {
+                aggregate.report(aggregateTracer(aggregate.tracer), parent);
+            }
+        }
+    }
+
+    private static final class Aggregate {
+        private final String operationName;
+        private int count;
+        private long totalDuration;
+        private long minDuration = Long.MAX_VALUE;
+        private long maxDuration;
+        private long start = Long.MAX_VALUE;
+        private long end;
+        private Tracer tracer;
+        private byte flags;
+
+        Aggregate(String operationName) {
+            this.operationName = operationName;
+        }
+
+        void add(Span span) {
+            long duration = span.getDuration();
+            count++;
+            totalDuration += duration;
+            minDuration = Math.min(minDuration, duration);
+            maxDuration = Math.max(maxDuration, duration);
+            start = Math.min(start, span.getStart());
+            end = Math.max(end, span.getStart() + duration);
+            tracer = span.getTracer();
+            flags = span.context().getFlags();
+        }
+
+        void report(Tracer tracer, ParentKey parent) {
+            tracer.buildSpan(operationName)
+                    .asChildOf(new SpanContext(parent.traceId, parent.spanId, 0, flags))
+                    .withStartTimestamp(start)
+                    .withTag(COUNT_TAG, count)
+                    .withTag(TOTAL_DURATION_TAG, totalDuration)
+                    .withTag(MIN_DURATION_TAG, minDuration)
+                    .withTag(MAX_DURATION_TAG, maxDuration)
+                    .start()
+                    .finish(end);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.reporters.CompositeReporter;
+import com.uber.jaeger.reporters.Reporter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link CompositeReporter} giving access to the reporters it was created with, which it keeps private
+ */
+public class InspectableCompositeReporter extends CompositeReporter {
+
+    private final List<Reporter> reporters;
+
+    public InspectableCompositeReporter(Reporter... reporters) {
+        super(reporters);
+        this.reporters = Collections.unmodifiableList(Arrays.asList(reporters));
+    }
+
+    public List<Reporter> getReporters() {
+        return reporters;
+    }
+}
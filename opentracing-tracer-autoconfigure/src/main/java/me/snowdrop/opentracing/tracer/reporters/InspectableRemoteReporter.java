@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.reporters.RemoteReporter;
+import com.uber.jaeger.senders.Sender;
+
+/**
+ * {@link RemoteReporter} giving access to the sender it was created with, which it keeps private
+ */
+public class InspectableRemoteReporter extends RemoteReporter implements SendingReporter {
+
+    private final Sender sender;
+
+    public InspectableRemoteReporter(Sender sender, int flushInterval, int maxQueueSize, Metrics metrics) {
+        super(sender, flushInterval, maxQueueSize, metrics);
+        this.sender = sender;
+    }
+
+    @Override
+    public Sender getSender() {
+        return sender;
+    }
+}
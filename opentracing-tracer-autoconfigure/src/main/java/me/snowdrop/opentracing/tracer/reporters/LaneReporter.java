@@ -0,0 +1,369 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.metrics.Counter;
+import com.uber.jaeger.metrics.Gauge;
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.metrics.StatsFactory;
+import com.uber.jaeger.senders.Sender;
+import io.opentracing.tag.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replacement for {@link com.uber.jaeger.reporters.RemoteReporter} which queues spans in two bounded lanes
+ * instead of a single queue, so that the spans that matter the most are not the first ones to be dropped.
+ *
+ * Spans tagged with {@code error=true} or lasting at least the slow span threshold go to the priority lane,
+ * the others to the normal lane. Each lane drops the spans it has no room for on its own, so a flood of normal spans
+ * never takes the room of priority spans, and the flush thread always drains the priority lane first.
+ *
+ * Besides the {@link Metrics} of the reporter, every lane counts the spans it drops in
+ * {@code jaeger.reporter-lane} with the tags {@code lane} and {@code state=dropped}
+ *
+ * With a byte budget, both lanes are charged the estimated heap size of the spans they hold against the same budget,
+ * whose use is published in the {@code jaeger.reporter-queue-bytes} gauge. The normal lane is bounded by the budget
+ * minus the bytes reserved for the priority lane instead of by its number of spans, the priority lane may use the whole
+ * budget and still holds at most its number of spans. A priority queue size of 0 disables the priority lane,
+ * all the spans then go to the normal lane
+ */
+public class LaneReporter implements SendingReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(LaneReporter.class);
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private final Sender sender;
+    private final long flushIntervalNanos;
+    private final long slowThresholdMicros;
+    private final Metrics metrics;
+    private final Lane priority;
+    private final Lane normal;
+    private final long maxQueueBytes;
+    private final AtomicLong bytes = new AtomicLong();
+    private final Gauge queuedBytes;
+    private final Thread flushThread;
+
+    private volatile boolean sleeping;
+    private volatile boolean flushRequested;
+    private volatile boolean closed;
+
+    /**
+     * @param sender the sender the spans are handed to by the flush thread
+     * @param flushInterval interval in milliseconds at which the sender is flushed
+     * @param priorityQueueSize number of priority spans waiting to be sent before new ones are dropped
+     * @param normalQueueSize number of other spans waiting to be sent before new ones are dropped
+     * @param slowThresholdMillis duration from which spans are sent through the priority lane
+     */
+    public LaneReporter(Sender sender, int flushInterval, int priorityQueueSize, int normalQueueSize,
+                        long slowThresholdMillis, Metrics metrics, StatsFactory statsFactory) {
+        this(sender, flushInterval, priorityQueueSize, normalQueueSize, slowThresholdMillis, 0, 0, metrics, statsFactory);
+    }
+
+    /**
+     * @param maxQueueBytes estimated heap size of the spans waiting in both lanes before new ones are dropped,
+     *                      the normal queue size is ignored when it is greater than 0
+     * @param priorityReservedBytes part of {@code maxQueueBytes} that only the spans of the priority lane may use
+     */
+    public LaneReporter(Sender sender, int flushInterval, int priorityQueueSize, int normalQueueSize,
+                        long slowThresholdMillis, long maxQueueBytes, long priorityReservedBytes,
+                        Metrics metrics, StatsFactory statsFactory) {
+        this.sender = sender;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        this.slowThresholdMicros = TimeUnit.MILLISECONDS.toMicros(slowThresholdMillis);
+        this.metrics = metrics;
+        this.maxQueueBytes = maxQueueBytes;
+        long reserved = priorityQueueSize > 0 ? Math.min(Math.max(priorityReservedBytes, 0), maxQueueBytes) : 0;
+        this.priority = new Lane("priority", priorityQueueSize, maxQueueBytes, maxQueueBytes > 0 ? bytes : null, statsFactory);
+        this.normal = maxQueueBytes > 0
+                ? new Lane("normal", Integer.MAX_VALUE, maxQueueBytes - reserved, bytes, statsFactory)
+                : new Lane("normal", normalQueueSize, 0, null, statsFactory);
+        this.queuedBytes = maxQueueBytes > 0
+                ? statsFactory.createGauge("jaeger.reporter-queue-bytes", new HashMap<String, String>())
+                : null;
+
+        this.flushThread = new Thread(this::run, "jaeger.LaneReporter-FlushThread");
+        this.flushThread.setDaemon(true);
+        this.flushThread.start();
+    }
+
+    @Override
+    public void report(Span span) {
+        if (closed) {
+            metrics.reporterDropped.inc(1);
+            return;
+        }
+
+        Lane lane = isPriority(span) ? priority : normal;
+        Queued queued = lane.offer(span);
+        if (queued == null) {
+            lane.dropped.inc(1);
+            metrics.reporterDropped.inc(1);
+            return;
+        }
+
+        // the flush thread may have drained the lanes for the last time while the span was offered,
+        // it is dropped unless the flush thread or close() took it in the meantime
+        if (closed) {
+            if (lane.remove(queued)) {
+                lane.dropped.inc(1);
+                metrics.reporterDropped.inc(1);
+            }
+            return;
+        }
+
+        if (sleeping) {
+            LockSupport.unpark(flushThread);
+        }
+    }
+
+    private boolean isPriority(Span span) {
+        if (priority.capacity == 0) {
+            return false;
+        }
+        if (span.getDuration() >= slowThresholdMicros) {
+            return true;
+        }
+        Object error = span.getTags().get(Tags.ERROR.getKey());
+        return Boolean.TRUE.equals(error) || "true".equals(error);
+    }
+
+    private void run() {
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        while (true) {
+            Span span = priority.poll();
+            if (span == null) {
+                span = normal.poll();
+            }
+
+            if (span != null) {
+                append(span);
+            } else if (closed) {
+                break;
+            }
+
+            long now = System.nanoTime();
+            if (now - nextFlush >= 0 || (flushRequested && span == null)) {
+                flushRequested = false;
+                flushSender();
+                nextFlush = now + flushIntervalNanos;
+            } else if (span == null) {
+                sleeping = true;
+                // a span reported before the flag was set is seen by this check
+                if (priority.isEmpty() && normal.isEmpty() && !closed && !flushRequested) {
+                    LockSupport.parkNanos(this, nextFlush - now);
+                }
+                sleeping = false;
+            }
+        }
+        flushSender();
+    }
+
+    private void append(Span span) {
+        try {
+            int sent = sender.append(span);
+            if (sent > 0) {
+                metrics.reporterSuccess.inc(sent);
+            }
+        } catch (SenderException e) {
+            metrics.reporterFailure.inc(e.getDroppedSpanCount());
+        } catch (RuntimeException e) {
+            log.error("Could not append a span to {}", sender, e);
+            metrics.reporterFailure.inc(1);
+        }
+    }
+
+    /**
+     * Asks the flush thread to send the spans queued so far without waiting for the flush interval
+     */
+    public void flush() {
+        flushRequested = true;
+        LockSupport.unpark(flushThread);
+    }
+
+    private void flushSender() {
+        metrics.reporterQueueLength.update(priority.size() + normal.size());
+        if (queuedBytes != null) {
+            queuedBytes.update(bytes.get());
+        }
+        try {
+            int sent = sender.flush();
+            if (sent > 0) {
+                metrics.reporterSuccess.inc(sent);
+            }
+        } catch (SenderException e) {
+            metrics.reporterFailure.inc(e.getDroppedSpanCount());
+        } catch (RuntimeException e) {
+            log.error("Could not flush {}", sender, e);
+        }
+    }
+
+    /**
+     * Sends the spans still queued and closes the sender, the spans the flush thread could not send in time
+     * are counted as dropped
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(flushThread);
+        try {
+            flushThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drop(priority);
+        drop(normal);
+
+        try {
+            sender.close();
+        } catch (SenderException e) {
+            metrics.reporterFailure.inc(e.getDroppedSpanCount());
+        }
+    }
+
+    private void drop(Lane lane) {
+        while (lane.poll() != null) {
+            lane.dropped.inc(1);
+            metrics.reporterDropped.inc(1);
+        }
+    }
+
+    @Override
+    public Sender getSender() {
+        return sender;
+    }
+
+    @Override
+    public String toString() {
+        return "LaneReporter(sender=" + sender + ", priorityQueueSize=" + priority.capacity
+                + (maxQueueBytes > 0 ? ", maxQueueBytes=" + maxQueueBytes : ", normalQueueSize=" + normal.capacity) + ")";
+    }
+
+    private static final class Lane {
+
+        private final int capacity;
+        private final long maxBytes;
+        private final AtomicLong bytes;
+        private final Queue<Queued> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final Counter dropped;
+
+        /**
+         * @param maxBytes bytes of the shared budget the lane may fill, the budget being {@code bytes}
+         * @param bytes bytes used by all the lanes sharing the budget, null to bound the lane by {@code capacity} only
+         */
+        private Lane(String name, int capacity, long maxBytes, AtomicLong bytes, StatsFactory statsFactory) {
+            this.capacity = capacity;
+            this.maxBytes = maxBytes;
+            this.bytes = bytes;
+            Map<String, String> tags = new HashMap<>();
+            tags.put("lane", name);
+            tags.put("state", "dropped");
+            this.dropped = statsFactory.createCounter("jaeger.reporter-lane", tags);
+        }
+
+        /**
+         * @return the queued entry of the span, or null if the lane has no room for it
+         */
+        Queued offer(Span span) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return null;
+            }
+
+            int spanBytes = 0;
+            if (bytes != null) {
+                spanBytes = SpanSizeEstimator.estimate(span);
+                if (!reserve(spanBytes)) {
+                    size.decrementAndGet();
+                    return null;
+                }
+            }
+            Queued queued = new Queued(span, spanBytes);
+            queue.offer(queued);
+            return queued;
+        }
+
+        private boolean reserve(int spanBytes) {
+            while (true) {
+                long current = bytes.get();
+                if (current + spanBytes > maxBytes) {
+                    return false;
+                }
+                if (bytes.compareAndSet(current, current + spanBytes)) {
+                    return true;
+                }
+            }
+        }
+
+        Span poll() {
+            Queued queued = queue.poll();
+            if (queued == null) {
+                return null;
+            }
+            release(queued);
+            return queued.span;
+        }
+
+        /**
+         * @return true if the entry was still queued, only one of the concurrent callers removes it
+         */
+        boolean remove(Queued queued) {
+            if (!queue.remove(queued)) {
+                return false;
+            }
+            release(queued);
+            return true;
+        }
+
+        private void release(Queued queued) {
+            size.decrementAndGet();
+            if (queued.bytes > 0) {
+                bytes.addAndGet(-queued.bytes);
+            }
+        }
+
+        boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        int size() {
+            return size.get();
+        }
+
+    }
+
+    private static final class Queued {
+
+        private final Span span;
+        private final int bytes;
+
+        private Queued(Span span, int bytes) {
+            this.span = span;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.reporters.Reporter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reporter whose delegate can be replaced while the tracer is in use.
+ *
+ * Spans are handed to the new delegate as soon as it has been swapped in,
+ * the previous delegate is only closed (which flushes the spans it has queued)
+ * once every report call that was already using it has returned.
+ * Threads reporting spans never wait for a replacement to complete
+ */
+public class ReloadableReporter implements DelegatingReporter {
+
+    private volatile Generation current;
+
+    public ReloadableReporter(Reporter delegate) {
+        this.current = new Generation(delegate);
+    }
+
+    @Override
+    public void report(Span span) {
+        Generation generation;
+        while (true) {
+            generation = current;
+            generation.inFlight.incrementAndGet();
+            if (generation == current) {
+                break;
+            }
+            // swapped in between, the previous delegate may be closing already
+            generation.inFlight.decrementAndGet();
+        }
+
+        try {
+            generation.reporter.report(span);
+        } finally {
+            generation.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Make {@code reporter} receive all subsequent spans, then close the previous delegate
+     * once the spans being reported to it have been handed over
+     */
+    public synchronized void swap(Reporter reporter) {
+        Generation previous = current;
+        current = new Generation(reporter);
+
+        while (previous.inFlight.get() > 0) {
+            Thread.yield();
+        }
+        previous.reporter.close();
+    }
+
+    @Override
+    public Reporter getDelegate() {
+        return current.reporter;
+    }
+
+    @Override
+    public synchronized void close() {
+        current.reporter.close();
+    }
+
+    @Override
+    public String toString() {
+        return "ReloadableReporter(delegate=" + current.reporter + ")";
+    }
+
+    private static final class Generation {
+        private final Reporter reporter;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        Generation(Reporter reporter) {
+            this.reporter = reporter;
+        }
+    }
+}
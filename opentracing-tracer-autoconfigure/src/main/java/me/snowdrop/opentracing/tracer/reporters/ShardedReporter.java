@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.reporters.Reporter;
+import me.snowdrop.opentracing.tracer.senders.HealthTrackingSender;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static me.snowdrop.opentracing.tracer.Hashing.mix;
+
+/**
+ * Reporter that spreads spans across several reporters, each with its own queue and sender,
+ * so that all the spans of a trace end up with the same reporter.
+ *
+ * The reporter of a trace is chosen with rendezvous hashing over the reporters whose sender is available:
+ * when a sender becomes unavailable only the traces it was assigned to move to the other reporters,
+ * and they move back once it is available again
+ */
+public class ShardedReporter implements Reporter {
+
+    private final Shard[] shards;
+
+    public ShardedReporter(List<Shard> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = shards.toArray(new Shard[shards.size()]);
+    }
+
+    @Override
+    public void report(Span span) {
+        select(span.context().getTraceId()).reporter.report(span);
+    }
+
+    Shard select(long traceId) {
+        Shard selected = null;
+        long selectedScore = 0;
+        Shard fallback = null;
+        long fallbackScore = 0;
+
+        for (Shard shard : shards) {
+            long score = mix(traceId ^ shard.seed);
+            if (fallback == null || score > fallbackScore) {
+                fallback = shard;
+                fallbackScore = score;
+            }
+            if (shard.sender.isAvailable() && (selected == null || score > selectedScore)) {
+                selected = shard;
+                selectedScore = score;
+            }
+        }
+        // with every sender unavailable, keep the traces where they would be when healthy
+        return selected != null ? selected : fallback;
+    }
+
+    public List<Reporter> getReporters() {
+        List<Reporter> reporters = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            reporters.add(shard.reporter);
+        }
+        return Collections.unmodifiableList(reporters);
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.reporter.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ShardedReporter(");
+        for (int i = 0; i < shards.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(shards[i].reporter);
+        }
+        return builder.append(")").toString();
+    }
+
+    public static class Shard {
+        private final Reporter reporter;
+        private final HealthTrackingSender sender;
+        private final long seed;
+
+        /**
+         * @param name identifies the shard, the same name always gets assigned the same traces
+         * @param reporter the reporter sending the spans of the shard through {@code sender}
+         * @param sender tells whether the shard can currently accept traces
+         */
+        public Shard(String name, Reporter reporter, HealthTrackingSender sender) {
+            this.reporter = reporter;
+            this.sender = sender;
+            this.seed = mix(name.hashCode());
+        }
+    }
+}
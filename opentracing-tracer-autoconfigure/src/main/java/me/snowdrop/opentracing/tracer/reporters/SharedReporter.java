@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.reporters.Reporter;
+
+/**
+ * Reporter feeding a delegate that is owned elsewhere, closing it does not close the delegate.
+ *
+ * It is handed to the tracers of additional services so that they feed the reporter of the main tracer,
+ * and wraps the reporters of a {@link me.snowdrop.opentracing.tracer.ReporterAppender} in reloadable reporters
+ * so that they survive the chain they were added to
+ */
+public class SharedReporter implements DelegatingReporter {
+
+    private final Reporter delegate;
+
+    public SharedReporter(Reporter delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void report(Span span) {
+        delegate.report(span);
+    }
+
+    @Override
+    public void close() {
+        // the owner closes the delegate
+    }
+
+    @Override
+    public Reporter getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "SharedReporter(delegate=" + delegate + ")";
+    }
+}
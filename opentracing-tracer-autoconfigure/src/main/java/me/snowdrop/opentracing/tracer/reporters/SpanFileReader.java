@@ -0,0 +1,460 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import me.snowdrop.opentracing.tracer.senders.OtlpSpanEncoder;
+import me.snowdrop.opentracing.tracer.senders.ProtobufReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the segment files written by {@link SpanFileReporter}.
+ *
+ * Can be run from the command line to dump the spans of a directory or of individual segments:
+ *
+ * <pre>
+ * java -cp opentracing-tracer-autoconfigure.jar me.snowdrop.opentracing.tracer.reporters.SpanFileReader [--dump] &lt;directory or segment&gt;...
+ * </pre>
+ *
+ * By default the spans are written to the standard output as JSON, grouped by trace in the format of the Jaeger query API,
+ * which the Jaeger UI can load from a file. With {@code --dump} every span is printed on a single line instead
+ */
+public class SpanFileReader {
+
+    /**
+     * Decoded span, with times in microseconds like in the Jaeger model
+     */
+    public static class SpanRecord {
+        private final Map<String, Object> process;
+        private final List<Map<String, Object>> references = new ArrayList<>();
+        private final Map<String, Object> tags = new LinkedHashMap<>();
+        private final List<LogRecord> logs = new ArrayList<>();
+        private long traceId;
+        private long spanId;
+        private String operationName;
+        private long startTime;
+        private long duration;
+
+        SpanRecord(Map<String, Object> process) {
+            this.process = process;
+        }
+
+        /**
+         * @return the tags of the service that reported the span, including its {@code service.name}
+         */
+        public Map<String, Object> getProcess() {
+            return process;
+        }
+
+        public long getTraceId() {
+            return traceId;
+        }
+
+        public long getSpanId() {
+            return spanId;
+        }
+
+        public String getOperationName() {
+            return operationName;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return the references of the span, each with a {@code refType} and a {@code spanID}
+         */
+        public List<Map<String, Object>> getReferences() {
+            return references;
+        }
+
+        public Map<String, Object> getTags() {
+            return tags;
+        }
+
+        public List<LogRecord> getLogs() {
+            return logs;
+        }
+    }
+
+    public static class LogRecord {
+        private final long timestamp;
+        private final Map<String, Object> fields;
+
+        LogRecord(long timestamp, Map<String, Object> fields) {
+            this.timestamp = timestamp;
+            this.fields = fields;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Map<String, Object> getFields() {
+            return fields;
+        }
+    }
+
+    private static final String[] SPAN_KINDS = {null, null, "server", "client", "producer", "consumer"};
+
+    public static void main(String[] args) throws IOException {
+        boolean dump = false;
+        List<File> segments = new ArrayList<>();
+        for (String arg : args) {
+            if ("--dump".equals(arg)) {
+                dump = true;
+                continue;
+            }
+            File file = new File(arg);
+            segments.addAll(file.isDirectory() ? SpanFileReporter.listSegments(file) : Arrays.asList(file));
+        }
+        if (segments.isEmpty()) {
+            System.err.println("Usage: SpanFileReader [--dump] <directory or segment>...");
+            System.exit(1);
+        }
+
+        List<SpanRecord> spans = new ArrayList<>();
+        for (File segment : segments) {
+            spans.addAll(read(segment));
+        }
+
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        if (dump) {
+            for (SpanRecord span : spans) {
+                out.printf("%s %016x %016x %s start=%d duration=%d tags=%s%n", span.getProcess().get(OtlpSpanEncoder.SERVICE_NAME_ATTRIBUTE),
+                        span.getTraceId(), span.getSpanId(), span.getOperationName(), span.getStartTime(), span.getDuration(), span.getTags());
+            }
+        } else {
+            writeJson(spans, out);
+        }
+        out.flush();
+    }
+
+    /**
+     * @return the spans of {@code segment} in the order they were written
+     */
+    public static List<SpanRecord> read(File segment) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "r");
+             FileChannel channel = raf.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        byte[] magic = new byte[SpanFileReporter.MAGIC.length];
+        if (buffer.remaining() < magic.length + 4) {
+            throw new IOException(segment + " is not a span file");
+        }
+        buffer.get(magic);
+        int version = buffer.getInt();
+        if (!Arrays.equals(magic, SpanFileReporter.MAGIC) || version != SpanFileReporter.VERSION) {
+            throw new IOException(segment + " is not a span file of version " + SpanFileReporter.VERSION);
+        }
+
+        List<SpanRecord> spans = new ArrayList<>();
+        Map<String, Object> process = new LinkedHashMap<>();
+        ProtobufReader reader = new ProtobufReader(buffer);
+        for (int field = reader.readTag(); field != 0; field = reader.readTag()) {
+            if (field == SpanFileReporter.RESOURCE_RECORD) {
+                process = readResource(reader.readMessage());
+            } else if (field == SpanFileReporter.SPAN_RECORD) {
+                spans.add(readSpan(reader.readMessage(), process));
+            } else {
+                reader.skip();
+            }
+        }
+        return spans;
+    }
+
+    /**
+     * Writes the spans grouped by trace, in the JSON format of the Jaeger query API
+     */
+    public static void writeJson(List<SpanRecord> spans, Writer out) throws IOException {
+        Map<Long, List<SpanRecord>> traces = new LinkedHashMap<>();
+        for (SpanRecord span : spans) {
+            traces.computeIfAbsent(span.getTraceId(), traceId -> new ArrayList<>()).add(span);
+        }
+
+        out.write("{\"data\":[");
+        boolean firstTrace = true;
+        for (Map.Entry<Long, List<SpanRecord>> trace : traces.entrySet()) {
+            if (!firstTrace) {
+                out.write(',');
+            }
+            firstTrace = false;
+            String traceId = id(trace.getKey());
+            Map<Map<String, Object>, String> processIds = new LinkedHashMap<>();
+
+            out.write("{\"traceID\":\"" + traceId + "\",\"spans\":[");
+            boolean firstSpan = true;
+            for (SpanRecord span : trace.getValue()) {
+                if (!firstSpan) {
+                    out.write(',');
+                }
+                firstSpan = false;
+                String processId = processIds.computeIfAbsent(span.getProcess(), process -> "p" + (processIds.size() + 1));
+
+                out.write("{\"traceID\":\"" + traceId + "\",\"spanID\":\"" + id(span.getSpanId()) + "\",\"flags\":1,");
+                out.write("\"operationName\":");
+                writeString(out, span.getOperationName());
+                out.write(",\"references\":[");
+                for (int i = 0; i < span.getReferences().size(); i++) {
+                    Map<String, Object> reference = span.getReferences().get(i);
+                    out.write((i > 0 ? "," : "") + "{\"refType\":\"" + reference.get("refType") + "\",\"traceID\":\""
+                            + id((Long) reference.get("traceID")) + "\",\"spanID\":\"" + id((Long) reference.get("spanID")) + "\"}");
+                }
+                out.write("],\"startTime\":" + span.getStartTime() + ",\"duration\":" + span.getDuration() + ",\"tags\":");
+                writeTags(out, span.getTags());
+                out.write(",\"logs\":[");
+                for (int i = 0; i < span.getLogs().size(); i++) {
+                    LogRecord logRecord = span.getLogs().get(i);
+                    out.write((i > 0 ? "," : "") + "{\"timestamp\":" + logRecord.getTimestamp() + ",\"fields\":");
+                    writeTags(out, logRecord.getFields());
+                    out.write('}');
+                }
+                out.write("],\"processID\":\"" + processId + "\",\"warnings\":null}");
+            }
+
+            out.write("],\"processes\":{");
+            boolean firstProcess = true;
+            for (Map.Entry<Map<String, Object>, String> process : processIds.entrySet()) {
+                if (!firstProcess) {
+                    out.write(',');
+                }
+                firstProcess = false;
+                Map<String, Object> tags = new LinkedHashMap<>(process.getKey());
+                Object serviceName = tags.remove(OtlpSpanEncoder.SERVICE_NAME_ATTRIBUTE);
+                out.write("\"" + process.getValue() + "\":{\"serviceName\":");
+                writeString(out, String.valueOf(serviceName));
+                out.write(",\"tags\":");
+                writeTags(out, tags);
+                out.write('}');
+            }
+            out.write("},\"warnings\":null}");
+        }
+        out.write("],\"total\":0,\"limit\":0,\"offset\":0,\"errors\":null}");
+    }
+
+    private static Map<String, Object> readResource(ProtobufReader reader) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (int field = reader.readTag(); field != 0; field = reader.readTag()) {
+            if (field == OtlpSpanEncoder.RESOURCE_ATTRIBUTES) {
+                readAttribute(reader.readMessage(), attributes);
+            } else {
+                reader.skip();
+            }
+        }
+        return attributes;
+    }
+
+    private static SpanRecord readSpan(ProtobufReader reader, Map<String, Object> process) {
+        SpanRecord span = new SpanRecord(process);
+        long endTime = 0;
+        String kind = null;
+        for (int field = reader.readTag(); field != 0; field = reader.readTag()) {
+            switch (field) {
+                case OtlpSpanEncoder.SPAN_TRACE_ID:
+                    span.traceId = reader.readId();
+                    break;
+                case OtlpSpanEncoder.SPAN_SPAN_ID:
+                    span.spanId = reader.readId();
+                    break;
+                case OtlpSpanEncoder.SPAN_PARENT_SPAN_ID:
+                    span.references.add(0, reference("CHILD_OF", 0, reader.readId()));
+                    break;
+                case OtlpSpanEncoder.SPAN_NAME:
+                    span.operationName = reader.readString();
+                    break;
+                case OtlpSpanEncoder.SPAN_KIND:
+                    int value = (int) reader.readVarint();
+                    kind = value < SPAN_KINDS.length ? SPAN_KINDS[value] : null;
+                    break;
+                case OtlpSpanEncoder.SPAN_START_TIME:
+                    span.startTime = reader.readFixed64() / 1000;
+                    break;
+                case OtlpSpanEncoder.SPAN_END_TIME:
+                    endTime = reader.readFixed64() / 1000;
+                    break;
+                case OtlpSpanEncoder.SPAN_ATTRIBUTES:
+                    readAttribute(reader.readMessage(), span.tags);
+                    break;
+                case OtlpSpanEncoder.SPAN_EVENTS:
+                    span.logs.add(readEvent(reader.readMessage()));
+                    break;
+                case OtlpSpanEncoder.SPAN_LINKS:
+                    span.references.add(readLink(reader.readMessage()));
+                    break;
+                default:
+                    reader.skip();
+            }
+        }
+        span.duration = endTime - span.startTime;
+        if (kind != null) {
+            span.tags.put("span.kind", kind);
+        }
+        for (Map<String, Object> reference : span.references) {
+            reference.putIfAbsent("traceID", span.traceId);
+        }
+        return span;
+    }
+
+    private static LogRecord readEvent(ProtobufReader reader) {
+        long timestamp = 0;
+        String name = null;
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (int field = reader.readTag(); field != 0; field = reader.readTag()) {
+            if (field == OtlpSpanEncoder.EVENT_TIME) {
+                timestamp = reader.readFixed64() / 1000;
+            } else if (field == OtlpSpanEncoder.EVENT_NAME) {
+                name = reader.readString();
+            } else if (field == OtlpSpanEncoder.EVENT_ATTRIBUTES) {
+                readAttribute(reader.readMessage(), fields);
+            } else {
+                reader.skip();
+            }
+        }
+        if (fields.isEmpty() && name != null) {
+            fields.put("event", name);
+        }
+        return new LogRecord(timestamp, fields);
+    }
+
+    private static Map<String, Object> readLink(ProtobufReader reader) {
+        long traceId = 0;
+        long spanId = 0;
+        for (int field = reader.readTag(); field != 0; field = reader.readTag()) {
+            if (field == OtlpSpanEncoder.LINK_TRACE_ID) {
+                traceId = reader.readId();
+            } else if (field == OtlpSpanEncoder.LINK_SPAN_ID) {
+                spanId = reader.readId();
+            } else {
+                reader.skip();
+            }
+        }
+        return reference("FOLLOWS_FROM", traceId, spanId);
+    }
+
+    private static Map<String, Object> reference(String type, long traceId, long spanId) {
+        Map<String, Object> reference = new LinkedHashMap<>();
+        reference.put("refType", type);
+        if (traceId != 0) {
+            reference.put("traceID", traceId);
+        }
+        reference.put("spanID", spanId);
+        return reference;
+    }
+
+    private static void readAttribute(ProtobufReader reader, Map<String, Object> attributes) {
+        String key = null;
+        Object value = null;
+        for (int field = reader.readTag(); field != 0; field = reader.readTag()) {
+            if (field == OtlpSpanEncoder.KEY_VALUE_KEY) {
+                key = reader.readString();
+            } else if (field == OtlpSpanEncoder.KEY_VALUE_VALUE) {
+                value = readValue(reader.readMessage());
+            } else {
+                reader.skip();
+            }
+        }
+        if (key != null) {
+            attributes.put(key, value);
+        }
+    }
+
+    private static Object readValue(ProtobufReader reader) {
+        Object value = null;
+        for (int field = reader.readTag(); field != 0; field = reader.readTag()) {
+            switch (field) {
+                case OtlpSpanEncoder.ANY_VALUE_STRING:
+                    value = reader.readString();
+                    break;
+                case OtlpSpanEncoder.ANY_VALUE_BOOL:
+                    value = reader.readBool();
+                    break;
+                case OtlpSpanEncoder.ANY_VALUE_INT:
+                    value = reader.readVarint();
+                    break;
+                case OtlpSpanEncoder.ANY_VALUE_DOUBLE:
+                    value = reader.readDouble();
+                    break;
+                default:
+                    reader.skip();
+            }
+        }
+        return value;
+    }
+
+    private static void writeTags(Writer out, Map<String, Object> tags) throws IOException {
+        out.write('[');
+        boolean first = true;
+        for (Map.Entry<String, Object> tag : tags.entrySet()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            Object value = tag.getValue();
+            out.write("{\"key\":");
+            writeString(out, tag.getKey());
+            if (value instanceof Boolean) {
+                out.write(",\"type\":\"bool\",\"value\":" + value);
+            } else if (value instanceof Long) {
+                out.write(",\"type\":\"int64\",\"value\":" + value);
+            } else if (value instanceof Double && !((Double) value).isNaN() && !((Double) value).isInfinite()) {
+                out.write(",\"type\":\"float64\",\"value\":" + value);
+            } else {
+                out.write(",\"type\":\"string\",\"value\":");
+                writeString(out, String.valueOf(value));
+            }
+            out.write('}');
+        }
+        out.write(']');
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    private static String id(long id) {
+        return String.format("%016x", id);
+    }
+}
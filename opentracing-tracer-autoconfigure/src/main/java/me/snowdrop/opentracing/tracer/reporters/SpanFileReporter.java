@@ -0,0 +1,275 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.reporters.Reporter;
+import me.snowdrop.opentracing.tracer.senders.OtlpSpanEncoder;
+import me.snowdrop.opentracing.tracer.senders.ProtobufWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reporter appending spans to rolling, memory-mapped segment files, for offline capture at high rates.
+ *
+ * {@link #report(Span)} only puts the span in a bounded queue (dropping it when the queue is full).
+ * A single writer thread drains the queue in batches, encodes the spans and copies them into the mapped segment.
+ * The segment is forced to disk at most once every {@code commitInterval} milliseconds, so that a single
+ * sync commits all the spans written in the meantime.
+ *
+ * A segment starts with {@link #MAGIC} and {@link #VERSION}, followed by protobuf length-delimited records:
+ * field {@link #RESOURCE_RECORD} holds an OTLP {@code Resource} which applies to the spans following it,
+ * field {@link #SPAN_RECORD} an OTLP {@code Span}. The unused end of the segment is left zeroed.
+ * Segments are named {@code spans-<sequence>.seg}, see {@link SpanFileReader} to read them
+ */
+public class SpanFileReporter implements Reporter {
+
+    private static final Logger log = LoggerFactory.getLogger(SpanFileReporter.class);
+
+    public static final byte[] MAGIC = {'J', 'S', 'P', 'N'};
+    public static final int VERSION = 1;
+    public static final int RESOURCE_RECORD = 1;
+    public static final int SPAN_RECORD = 2;
+
+    static final String SEGMENT_PREFIX = "spans-";
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int HEADER_SIZE = MAGIC.length + 4;
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private final File directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final long commitIntervalNanos;
+    private final Metrics metrics;
+    private final BlockingQueue<Span> queue;
+    private final Deque<File> segments = new ArrayDeque<>();
+    private final ProtobufWriter writer = new ProtobufWriter(4096);
+    private final Thread writerThread;
+
+    private volatile boolean closed;
+
+    // only accessed by the writer thread
+    private long sequence;
+    private MappedByteBuffer segment;
+    private Tracer segmentTracer;
+    private boolean dirty;
+    private long lastCommit;
+    // spans of the current batch already written or dropped
+    private int handled;
+
+    /**
+     * @param directory directory the segments are written to, created if needed
+     * @param segmentSize size in bytes of every segment
+     * @param maxSegments number of segments kept in the directory, including the ones found at startup
+     * @param queueSize number of spans waiting to be written before new ones are dropped
+     * @param commitInterval milliseconds between two syncs of the current segment
+     */
+    public SpanFileReporter(File directory, int segmentSize, int maxSegments, int queueSize, long commitInterval,
+                            Metrics metrics) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Could not create span file directory " + directory);
+        }
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be larger than " + HEADER_SIZE);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(commitInterval);
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+
+        for (File existing : listSegments(directory)) {
+            segments.addLast(existing);
+            sequence = Math.max(sequence, sequenceOf(existing) + 1);
+        }
+
+        this.writerThread = new Thread(this::run, "jaeger.SpanFileReporter-Writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void report(Span span) {
+        if (closed || !queue.offer(span)) {
+            metrics.reporterDropped.inc(1);
+        }
+    }
+
+    /**
+     * Writes the spans still queued, syncs the current segment and stops the writer thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the segment files of {@code directory}, oldest first
+     */
+    public static List<File> listSegments(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(files);
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    private void run() {
+        List<Span> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        lastCommit = System.nanoTime();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Span first = queue.poll(Math.max(1, commitIntervalNanos), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                    handled = 0;
+                    write(batch);
+                    batch.clear();
+                }
+                if (dirty && System.nanoTime() - lastCommit >= commitIntervalNanos) {
+                    commit();
+                }
+            } catch (InterruptedException e) {
+                closed = true;
+            } catch (IOException | RuntimeException e) {
+                metrics.reporterFailure.inc(batch.size() - handled);
+                batch.clear();
+                segment = null;
+                log.error("Could not write spans to " + directory, e);
+            }
+        }
+        if (dirty) {
+            commit();
+        }
+    }
+
+    private void write(List<Span> batch) throws IOException {
+        int written = 0;
+        try {
+            for (Span span : batch) {
+                if (segment == null || !encode(span, segmentTracer, segment.remaining())) {
+                    // a new segment starts with the resource record, only roll when the span fits in it
+                    if (!encode(span, null, segmentSize - HEADER_SIZE)) {
+                        log.warn("Span {} of {} bytes does not fit in a segment of {} bytes",
+                                span, writer.size(), segmentSize);
+                        metrics.reporterDropped.inc(1);
+                        handled++;
+                        continue;
+                    }
+                    roll();
+                }
+                segment.put(writer.buffer(), 0, writer.size());
+                segmentTracer = span.getTracer();
+                dirty = true;
+                written++;
+                handled++;
+            }
+        } finally {
+            metrics.reporterSuccess.inc(written);
+        }
+    }
+
+    /**
+     * Encodes the span, preceded by the resource of its tracer unless {@code previous} already wrote it
+     *
+     * @return whether the encoded records fit in {@code remaining} bytes
+     */
+    private boolean encode(Span span, Tracer previous, int remaining) {
+        writer.reset();
+        Tracer tracer = span.getTracer();
+        if (tracer != previous) {
+            OtlpSpanEncoder.writeResource(writer, RESOURCE_RECORD, tracer);
+        }
+        OtlpSpanEncoder.writeSpan(writer, SPAN_RECORD, span);
+        return writer.size() <= remaining;
+    }
+
+    private void roll() throws IOException {
+        if (dirty) {
+            commit();
+        }
+
+        File file;
+        do {
+            // another reporter may be writing to the same directory, e.g. while the configuration is reloaded
+            file = new File(directory, String.format("%s%019d%s", SEGMENT_PREFIX, sequence++, SEGMENT_SUFFIX));
+        } while (!file.createNewFile());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            // the mapping stays valid once the channel is closed and is released when the buffer is garbage collected,
+            // so the disk space of a deleted segment is only freed once its buffer has been collected
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segment.put(MAGIC).putInt(VERSION);
+        segmentTracer = null;
+        dirty = true;
+
+        segments.addLast(file);
+        while (segments.size() > maxSegments) {
+            File oldest = segments.removeFirst();
+            if (!oldest.delete()) {
+                log.warn("Could not delete span file {}", oldest);
+            }
+        }
+    }
+
+    private void commit() {
+        if (segment != null) {
+            segment.force();
+        }
+        dirty = false;
+        lastCommit = System.nanoTime();
+    }
+
+    static long sequenceOf(File segment) {
+        String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SpanFileReporter(directory=" + directory + ", segmentSize=" + segmentSize
+                + ", maxSegments=" + maxSegments + ")";
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.LogData;
+import com.uber.jaeger.Reference;
+import com.uber.jaeger.Span;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the heap retained by a finished span while it waits in a reporter queue.
+ *
+ * The estimate follows the layout of a 64-bit JVM with compressed references: object headers, map entries and
+ * strings of two bytes per character. It does not walk the object graph, so it is cheap enough to be computed for
+ * every reported span and errs on the side of overestimating
+ */
+final class SpanSizeEstimator {
+
+    /**
+     * Span, SpanContext and their tag, log and reference collections
+     */
+    static final int SPAN_OVERHEAD = 256;
+
+    private static final int STRING_OVERHEAD = 40;
+    private static final int MAP_ENTRY_OVERHEAD = 48;
+    private static final int LOG_OVERHEAD = 48;
+    private static final int REFERENCE_OVERHEAD = 64;
+    private static final int BOXED_VALUE_SIZE = 24;
+    /**
+     * Values of other types, which are not converted to a string to be measured
+     */
+    private static final int OTHER_VALUE_SIZE = 128;
+
+    private SpanSizeEstimator() {
+    }
+
+    static int estimate(Span span) {
+        long size = SPAN_OVERHEAD + sizeOf(span.getOperationName());
+
+        Map<String, Object> tags = span.getTags();
+        if (tags != null) {
+            size += sizeOf(tags);
+        }
+
+        List<LogData> logs = span.getLogs();
+        if (logs != null) {
+            for (LogData log : logs) {
+                size += LOG_OVERHEAD + sizeOf(log.getMessage());
+                if (log.getFields() != null) {
+                    size += sizeOf(log.getFields());
+                }
+            }
+        }
+
+        List<Reference> references = span.getReferences();
+        if (references != null) {
+            size += (long) references.size() * REFERENCE_OVERHEAD;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static long sizeOf(Map<String, ?> map) {
+        long size = 0;
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            size += MAP_ENTRY_OVERHEAD + sizeOf(entry.getKey()) + sizeOf(entry.getValue());
+        }
+        return size;
+    }
+
+    private static long sizeOf(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return STRING_OVERHEAD + 2L * ((String) value).length();
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return BOXED_VALUE_SIZE;
+        }
+        return OTHER_VALUE_SIZE;
+    }
+}
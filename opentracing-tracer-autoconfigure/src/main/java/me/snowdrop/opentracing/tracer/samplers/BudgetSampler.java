@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.samplers;
+
+import com.uber.jaeger.samplers.Sampler;
+import com.uber.jaeger.samplers.SamplingStatus;
+
+import java.util.Collections;
+
+/**
+ * Sampler that limits the traces sampled by its delegate with a budget per operation name,
+ * so that a single busy operation cannot use up the tracing budget of the whole service
+ */
+public class BudgetSampler implements Sampler {
+
+    private static final SamplingStatus NOT_SAMPLED = SamplingStatus.of(false, Collections.emptyMap());
+
+    private final Sampler delegate;
+    private final KeyedRateLimiter rateLimiter;
+
+    public BudgetSampler(Sampler delegate, KeyedRateLimiter rateLimiter) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public SamplingStatus sample(String operation, long id) {
+        SamplingStatus status = delegate.sample(operation, id);
+        if (status.isSampled() && !rateLimiter.checkCredit(operation)) {
+            return NOT_SAMPLED;
+        }
+        return status;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        return "BudgetSampler(delegate=" + delegate + ")";
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.samplers;
+
+import com.uber.jaeger.utils.Clock;
+import com.uber.jaeger.utils.SystemClock;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets assigned per key, for example per operation name or per tenant.
+ *
+ * Each bucket is refilled with {@code creditsPerSecond} up to {@code maxBalance}.
+ * Credits a bucket cannot hold are not lost but put in a pool shared by all keys,
+ * which is drawn from when a busy key has spent its own credits.
+ * At most {@code maxKeys} buckets are kept, buckets that have not been used for {@code keyExpiry}
+ * milliseconds are evicted and their balance goes to the shared pool.
+ * When no bucket can be assigned to a new key, that key draws from the shared pool only
+ *
+ * Buckets are swept at most once per second (or per key expiry if shorter) by the caller that finds the sweep due:
+ * every bucket is refilled, which moves the credits of idle keys to the shared pool, and expired buckets are evicted.
+ * Unused credits therefore reach busy keys within a second, and no other call walks the buckets
+ */
+public class KeyedRateLimiter {
+
+    private final double creditsPerNano;
+    private final double maxBalance;
+    private final int maxKeys;
+    private final long expiryNanos;
+    private final Clock clock;
+    private final long sweepIntervalNanos;
+    private final AtomicLong nextSweep;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private double sharedBalance;
+
+    public KeyedRateLimiter(double creditsPerSecond, double maxBalance, int maxKeys, long keyExpiry) {
+        this(creditsPerSecond, maxBalance, maxKeys, keyExpiry, new SystemClock());
+    }
+
+    public KeyedRateLimiter(double creditsPerSecond, double maxBalance, int maxKeys, long keyExpiry, Clock clock) {
+        this.creditsPerNano = creditsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.maxBalance = maxBalance;
+        this.maxKeys = maxKeys;
+        this.expiryNanos = TimeUnit.MILLISECONDS.toNanos(keyExpiry);
+        this.clock = clock;
+        this.sweepIntervalNanos = Math.min(expiryNanos, TimeUnit.SECONDS.toNanos(1));
+        this.nextSweep = new AtomicLong(clock.currentNanoTicks() + sweepIntervalNanos);
+    }
+
+    public boolean checkCredit(String key) {
+        long now = clock.currentNanoTicks();
+        sweepIfDue(now);
+
+        Bucket bucket = getBucket(key, now);
+        if (bucket != null && bucket.take(now)) {
+            return true;
+        }
+        return takeShared();
+    }
+
+    /**
+     * Number of keys that currently have a bucket of their own
+     */
+    public int getKeyCount() {
+        return buckets.size();
+    }
+
+    private Bucket getBucket(String key, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        if (buckets.size() >= maxKeys) {
+            return null;
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(now));
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + sweepIntervalNanos)) {
+            return;
+        }
+
+        for (Iterator<Bucket> it = buckets.values().iterator(); it.hasNext(); ) {
+            Bucket bucket = it.next();
+            if (bucket.isExpired(now)) {
+                it.remove();
+                bucket.evict(now);
+            } else {
+                bucket.sweep(now);
+            }
+        }
+    }
+
+    private synchronized void depositShared(double credits) {
+        sharedBalance = Math.min(sharedBalance + credits, maxBalance * Math.max(1, buckets.size()));
+    }
+
+    private synchronized boolean takeShared() {
+        if (sharedBalance >= 1.0) {
+            sharedBalance -= 1.0;
+            return true;
+        }
+        return false;
+    }
+
+    private final class Bucket {
+        private double balance;
+        private long lastTick;
+        private long lastUsed;
+
+        Bucket(long now) {
+            this.balance = maxBalance;
+            this.lastTick = now;
+            this.lastUsed = now;
+        }
+
+        synchronized boolean take(long now) {
+            refill(now);
+            lastUsed = now;
+            if (balance >= 1.0) {
+                balance -= 1.0;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean isExpired(long now) {
+            return now - lastUsed >= expiryNanos;
+        }
+
+        synchronized void sweep(long now) {
+            refill(now);
+        }
+
+        synchronized void evict(long now) {
+            refill(now);
+            depositShared(balance);
+            balance = 0;
+        }
+
+        private void refill(long now) {
+            balance += (now - lastTick) * creditsPerNano;
+            lastTick = now;
+            if (balance > maxBalance) {
+                depositShared(balance - maxBalance);
+                balance = maxBalance;
+            }
+        }
+    }
+}
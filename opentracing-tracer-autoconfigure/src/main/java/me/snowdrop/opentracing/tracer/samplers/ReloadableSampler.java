@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.samplers;
+
+import com.uber.jaeger.samplers.Sampler;
+import com.uber.jaeger.samplers.SamplingStatus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sampler whose delegate can be replaced, or temporarily overridden, while the tracer is in use.
+ * Sampling decisions never wait for a replacement to complete
+ */
+public class ReloadableSampler implements Sampler {
+
+    private volatile Sampler delegate;
+
+    private volatile SamplingOverride override;
+
+    public ReloadableSampler(Sampler delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public SamplingStatus sample(String operation, long id) {
+        SamplingOverride current = override;
+        if (current != null) {
+            if (System.nanoTime() - current.untilNanos < 0) {
+                return current.sampler.sample(operation, id);
+            }
+            clearOverride(current);
+        }
+        return delegate.sample(operation, id);
+    }
+
+    /**
+     * Make {@code sampler} take all subsequent sampling decisions and close the previous delegate
+     */
+    public synchronized void swap(Sampler sampler) {
+        Sampler previous = delegate;
+        delegate = sampler;
+        previous.close();
+    }
+
+    /**
+     * Make {@code sampler} take the sampling decisions for the next {@code durationMillis} milliseconds,
+     * after which the delegate takes over again
+     */
+    public synchronized void override(Sampler sampler, long durationMillis) {
+        SamplingOverride previous = override;
+        override = new SamplingOverride(sampler, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        if (previous != null) {
+            previous.sampler.close();
+        }
+    }
+
+    public void clearOverride() {
+        SamplingOverride current = override;
+        if (current != null) {
+            clearOverride(current);
+        }
+    }
+
+    private synchronized void clearOverride(SamplingOverride expected) {
+        if (override == expected) {
+            override = null;
+            expected.sampler.close();
+        }
+    }
+
+    public Sampler getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return the sampler currently overriding the delegate, or null
+     */
+    public Sampler getOverride() {
+        SamplingOverride current = override;
+        return current != null && System.nanoTime() - current.untilNanos < 0 ? current.sampler : null;
+    }
+
+    @Override
+    public synchronized void close() {
+        clearOverride();
+        delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        return "ReloadableSampler(delegate=" + delegate + ", override=" + getOverride() + ")";
+    }
+
+    private static final class SamplingOverride {
+        private final Sampler sampler;
+        private final long untilNanos;
+
+        SamplingOverride(Sampler sampler, long untilNanos) {
+            this.sampler = sampler;
+            this.untilNanos = untilNanos;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.samplers;
+
+import com.uber.jaeger.exceptions.SamplingStrategyErrorException;
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.samplers.PerOperationSampler;
+import com.uber.jaeger.samplers.ProbabilisticSampler;
+import com.uber.jaeger.samplers.RateLimitingSampler;
+import com.uber.jaeger.samplers.Sampler;
+import com.uber.jaeger.samplers.SamplingManager;
+import com.uber.jaeger.samplers.SamplingStatus;
+import com.uber.jaeger.samplers.http.OperationSamplingParameters;
+import com.uber.jaeger.samplers.http.SamplingStrategyResponse;
+
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Polls the sampling strategies of several services from a single timer thread,
+ * where every {@link com.uber.jaeger.samplers.RemoteControlledSampler} starts a thread of its own.
+ * The samplers it creates are updated the same way RemoteControlledSampler updates itself.
+ *
+ * The thread is started when the first sampler is created and stopped once all of them are closed
+ */
+public class RemoteSamplingPoller {
+
+    private static final int DEFAULT_POLLING_INTERVAL_MS = 60000;
+
+    /**
+     * Mirrors the limit RemoteControlledSampler gives its PerOperationSampler
+     */
+    private static final int MAX_OPERATIONS = 2000;
+
+    private final SamplingManager manager;
+    private final int pollingIntervalMs;
+    private final Metrics metrics;
+    private final List<PolledSampler> samplers = new CopyOnWriteArrayList<>();
+
+    private Timer timer;
+
+    public RemoteSamplingPoller(SamplingManager manager, Metrics metrics) {
+        this(manager, DEFAULT_POLLING_INTERVAL_MS, metrics);
+    }
+
+    public RemoteSamplingPoller(SamplingManager manager, int pollingIntervalMs, Metrics metrics) {
+        this.manager = manager;
+        this.pollingIntervalMs = pollingIntervalMs;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return a sampler taking the decisions of {@code initialSampler} until the strategy of {@code serviceName}
+     * has been retrieved
+     */
+    public synchronized Sampler create(String serviceName, Sampler initialSampler) {
+        PolledSampler sampler = new PolledSampler(serviceName, initialSampler);
+        samplers.add(sampler);
+        if (timer == null) {
+            timer = new Timer("jaeger.RemoteSamplingPoller", true);
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    samplers.forEach(PolledSampler::update);
+                }
+            }, pollingIntervalMs, pollingIntervalMs);
+        }
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                sampler.update();
+            }
+        }, 0);
+        return sampler;
+    }
+
+    /**
+     * @return the number of samplers that have not been closed
+     */
+    public int getSamplerCount() {
+        return samplers.size();
+    }
+
+    private synchronized void remove(PolledSampler sampler) {
+        if (samplers.remove(sampler) && samplers.isEmpty()) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteSamplingPoller(manager=" + manager + ", pollingIntervalMs=" + pollingIntervalMs
+                + ", samplers=" + samplers.size() + ")";
+    }
+
+    private final class PolledSampler implements Sampler {
+
+        private final String serviceName;
+        private volatile Sampler sampler;
+        private volatile boolean closed;
+
+        private PolledSampler(String serviceName, Sampler initialSampler) {
+            this.serviceName = serviceName;
+            this.sampler = initialSampler;
+        }
+
+        @Override
+        public SamplingStatus sample(String operation, long id) {
+            return sampler.sample(operation, id);
+        }
+
+        /**
+         * Only called from the timer thread
+         */
+        private void update() {
+            if (closed) {
+                return;
+            }
+
+            SamplingStrategyResponse response;
+            try {
+                response = manager.getSamplingStrategy(serviceName);
+                metrics.samplerRetrieved.inc(1);
+            } catch (SamplingStrategyErrorException e) {
+                metrics.samplerQueryFailure.inc(1);
+                return;
+            }
+
+            Sampler current = sampler;
+            OperationSamplingParameters operationSampling = response.getOperationSampling();
+            Sampler updated;
+            if (operationSampling != null) {
+                if (current instanceof PerOperationSampler) {
+                    if (((PerOperationSampler) current).update(operationSampling)) {
+                        metrics.samplerUpdated.inc(1);
+                    }
+                    return;
+                }
+                updated = new PerOperationSampler(MAX_OPERATIONS, operationSampling);
+            } else if (response.getRateLimitingSampling() != null) {
+                updated = new RateLimitingSampler(response.getRateLimitingSampling().getMaxTracesPerSecond());
+            } else if (response.getProbabilisticSampling() != null) {
+                updated = new ProbabilisticSampler(response.getProbabilisticSampling().getSamplingRate());
+            } else {
+                metrics.samplerParsingFailure.inc(1);
+                return;
+            }
+
+            if (!updated.equals(current)) {
+                sampler = updated;
+                current.close();
+                metrics.samplerUpdated.inc(1);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            remove(this);
+            sampler.close();
+        }
+
+        @Override
+        public String toString() {
+            return "PolledSampler(serviceName=" + serviceName + ", sampler=" + sampler + ")";
+        }
+    }
+}
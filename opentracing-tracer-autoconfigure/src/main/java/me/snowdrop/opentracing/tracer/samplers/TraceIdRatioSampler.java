@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.samplers;
+
+import com.uber.jaeger.Constants;
+import com.uber.jaeger.samplers.Sampler;
+import com.uber.jaeger.samplers.SamplingStatus;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static me.snowdrop.opentracing.tracer.Hashing.mix;
+
+/**
+ * Sampler whose decision only depends on the trace ID and the sampling rate, so that every service configured
+ * with the same rate takes the same decision for a trace, and a service with a higher rate samples a superset
+ * of the traces sampled by a service with a lower one.
+ *
+ * Unlike {@link com.uber.jaeger.samplers.ProbabilisticSampler}, which compares the raw trace ID with a boundary,
+ * the trace ID first goes through the MurmurHash3 finalizer, so that IDs that are not uniformly random
+ * (sequential, or generated with a fixed prefix) are still sampled at the configured rate.
+ * Sampling neither allocates nor locks
+ */
+public class TraceIdRatioSampler implements Sampler {
+
+    public static final String TYPE = "traceidratio";
+
+    private static final int HASH_BITS = 53;
+
+    private final double samplingRate;
+    private final long boundary;
+    private final SamplingStatus sampled;
+    private final SamplingStatus notSampled;
+
+    /**
+     * @param samplingRate probability of sampling a trace, between 0.0 and 1.0
+     */
+    public TraceIdRatioSampler(double samplingRate) {
+        if (samplingRate < 0.0 || samplingRate > 1.0) {
+            throw new IllegalArgumentException("The sampling rate must be between 0.0 and 1.0, got " + samplingRate);
+        }
+
+        this.samplingRate = samplingRate;
+        this.boundary = (long) (samplingRate * (1L << HASH_BITS));
+
+        Map<String, Object> tags = new HashMap<>();
+        tags.put(Constants.SAMPLER_TYPE_TAG_KEY, TYPE);
+        tags.put(Constants.SAMPLER_PARAM_TAG_KEY, samplingRate);
+        this.sampled = SamplingStatus.of(true, tags);
+        this.notSampled = SamplingStatus.of(false, tags);
+    }
+
+    @Override
+    public SamplingStatus sample(String operation, long id) {
+        return isSampled(id) ? sampled : notSampled;
+    }
+
+    boolean isSampled(long traceId) {
+        return (mix(traceId) >>> (Long.SIZE - HASH_BITS)) < boundary;
+    }
+
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+        return "TraceIdRatioSampler(samplingRate=" + samplingRate + ")";
+    }
+}
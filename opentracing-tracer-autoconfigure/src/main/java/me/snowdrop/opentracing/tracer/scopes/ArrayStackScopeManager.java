@@ -0,0 +1,127 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.scopes;
+
+import io.opentracing.Scope;
+import io.opentracing.ScopeManager;
+import io.opentracing.Span;
+
+import java.util.Arrays;
+
+/**
+ * {@link ScopeManager} that keeps the active scopes of each thread in an array based stack.
+ * Scope objects are owned by the stack slot they were created for and are reused by every
+ * later activation at the same depth, so steady-state activation and closing does not allocate
+ *
+ * As a consequence a Scope must not be used once it has been closed,
+ * which is what the OpenTracing API requires anyway
+ */
+public class ArrayStackScopeManager implements ScopeManager {
+
+    public static final int DEFAULT_INITIAL_DEPTH = 16;
+
+    private final ThreadLocal<ScopeStack> stacks;
+
+    public ArrayStackScopeManager() {
+        this(DEFAULT_INITIAL_DEPTH);
+    }
+
+    public ArrayStackScopeManager(int initialDepth) {
+        if (initialDepth < 1) {
+            throw new IllegalArgumentException("initialDepth must be positive, was " + initialDepth);
+        }
+        this.stacks = ThreadLocal.withInitial(() -> new ScopeStack(initialDepth));
+    }
+
+    @Override
+    public Scope activate(Span span, boolean finishSpanOnClose) {
+        return stacks.get().push(span, finishSpanOnClose);
+    }
+
+    @Override
+    public Scope active() {
+        return stacks.get().peek();
+    }
+
+    private static final class ScopeStack {
+
+        private final Thread owner = Thread.currentThread();
+
+        private StackScope[] scopes;
+
+        private int depth;
+
+        ScopeStack(int initialDepth) {
+            this.scopes = new StackScope[initialDepth];
+        }
+
+        StackScope push(Span span, boolean finishSpanOnClose) {
+            if (depth == scopes.length) {
+                scopes = Arrays.copyOf(scopes, depth * 2);
+            }
+
+            StackScope scope = scopes[depth];
+            if (scope == null) {
+                scope = new StackScope(this, depth);
+                scopes[depth] = scope;
+            }
+
+            scope.span = span;
+            scope.finishSpanOnClose = finishSpanOnClose;
+            depth++;
+            return scope;
+        }
+
+        StackScope peek() {
+            return depth == 0 ? null : scopes[depth - 1];
+        }
+    }
+
+    private static final class StackScope implements Scope {
+
+        private final ScopeStack stack;
+
+        private final int index;
+
+        private Span span;
+
+        private boolean finishSpanOnClose;
+
+        StackScope(ScopeStack stack, int index) {
+            this.stack = stack;
+            this.index = index;
+        }
+
+        @Override
+        public void close() {
+            // like ThreadLocalScope, only the active scope of the owning thread can be closed
+            if (stack.owner != Thread.currentThread() || stack.depth != index + 1) {
+                return;
+            }
+
+            Span toFinish = finishSpanOnClose ? span : null;
+            span = null;
+            stack.depth--;
+
+            if (toFinish != null) {
+                toFinish.finish();
+            }
+        }
+
+        @Override
+        public Span span() {
+            return span;
+        }
+    }
+}
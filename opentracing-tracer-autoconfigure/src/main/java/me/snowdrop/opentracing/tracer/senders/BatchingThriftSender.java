@@ -0,0 +1,257 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.reporters.protocols.JaegerThriftSpanConverter;
+import com.uber.jaeger.senders.Sender;
+import com.uber.jaeger.senders.ThriftSender;
+import com.uber.jaeger.thriftjava.Process;
+import com.uber.jaeger.thriftjava.Span;
+import com.uber.jaeger.thriftjava.Tag;
+import com.uber.jaeger.thriftjava.TagType;
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.transport.AutoExpandingBufferWriteTransport;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sender that batches spans the same way {@link ThriftSender} does, and converts them with
+ * {@link JaegerThriftSpanConverter}. When a {@link TagGuard} is given, the values of the span tags go through it
+ *
+ * Unlike ThriftSender, which labels every batch with the process of the first span it receives,
+ * spans are batched per tracer so that several services can share the sender
+ *
+ * Like every Sender used by {@link com.uber.jaeger.reporters.RemoteReporter},
+ * this class is only ever called from the reporter's queue processor thread
+ */
+public class BatchingThriftSender implements Sender {
+
+    /**
+     * Mirrors ThriftSender.EMIT_BATCH_OVERHEAD which is not visible outside of its package
+     */
+    static final int EMIT_BATCH_OVERHEAD = 33;
+
+    private static final int DEFAULT_MAX_PACKET_SIZE = 65000;
+
+    private final ThriftSender delegate;
+    private final TProtocolFactory protocolFactory;
+    private final TagGuard tagGuard;
+    private final int maxSpanBytes;
+    private final AutoExpandingBufferWriteTransport memoryTransport;
+    private final Map<com.uber.jaeger.Tracer, ProcessBatch> batches = new IdentityHashMap<>();
+
+    /**
+     * @param delegate the sender that performs the actual transmission of the batches
+     * @param protocolFactory the protocol the delegate uses, needed to compute the size of the batches
+     * @param maxPacketSize the same size limit that was used to construct the delegate
+     * @param tagGuard the guard the span tags go through, or null
+     */
+    public BatchingThriftSender(ThriftSender delegate, TProtocolFactory protocolFactory,
+                                int maxPacketSize, TagGuard tagGuard) {
+        if (maxPacketSize == 0) {
+            maxPacketSize = DEFAULT_MAX_PACKET_SIZE;
+        }
+
+        this.delegate = delegate;
+        this.protocolFactory = protocolFactory;
+        this.tagGuard = tagGuard;
+        this.maxSpanBytes = maxPacketSize - EMIT_BATCH_OVERHEAD;
+        this.memoryTransport = new AutoExpandingBufferWriteTransport(maxPacketSize, 2);
+    }
+
+    @Override
+    public int append(com.uber.jaeger.Span span) throws SenderException {
+        ProcessBatch batch = batches.get(span.getTracer());
+        if (batch == null) {
+            batch = new ProcessBatch(span.getTracer());
+            batches.put(span.getTracer(), batch);
+        }
+
+        Span thriftSpan = convert(span);
+        int spanSize;
+        try {
+            spanSize = getSizeOfSerializedThrift(thriftSpan);
+        } catch (SenderException e) {
+            release(thriftSpan);
+            throw e;
+        }
+
+        if (spanSize > maxSpanBytes) {
+            release(thriftSpan);
+            throw new SenderException(String.format("%s received a span that was too large, size = %d, max = %d",
+                    getClass().getSimpleName(), spanSize, maxSpanBytes), null, 1);
+        }
+
+        batch.byteBufferSize += spanSize;
+        if (batch.byteBufferSize <= maxSpanBytes) {
+            batch.spans.add(thriftSpan);
+            if (batch.byteBufferSize < maxSpanBytes) {
+                return 0;
+            }
+            return flush(batch);
+        }
+
+        int n;
+        try {
+            n = flush(batch);
+        } catch (SenderException e) {
+            // +1 for the span not submitted in the buffer above
+            release(thriftSpan);
+            throw new SenderException(e.getMessage(), e.getCause(), e.getDroppedSpanCount() + 1);
+        }
+
+        batch.spans.add(thriftSpan);
+        batch.byteBufferSize = batch.processBytesSize + spanSize;
+        return n;
+    }
+
+    /**
+     * Sends one batch per process, that is per tracer the spans were reported by
+     */
+    @Override
+    public int flush() throws SenderException {
+        int n = 0;
+        SenderException failure = null;
+        int dropped = 0;
+        for (ProcessBatch batch : batches.values()) {
+            try {
+                n += flush(batch);
+            } catch (SenderException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                dropped += e.getDroppedSpanCount();
+            }
+        }
+
+        if (failure != null) {
+            throw new SenderException(failure.getMessage(), failure.getCause(), dropped);
+        }
+        return n;
+    }
+
+    private int flush(ProcessBatch batch) throws SenderException {
+        if (batch.spans.isEmpty()) {
+            return 0;
+        }
+
+        int n = batch.spans.size();
+        try {
+            delegate.send(batch.process, batch.spans);
+        } catch (TException e) {
+            throw new SenderException("Failed to flush spans.", e, n);
+        } finally {
+            for (int i = 0; i < n; i++) {
+                release(batch.spans.get(i));
+            }
+            batch.spans.clear();
+            batch.byteBufferSize = batch.processBytesSize;
+            flushed();
+        }
+        return n;
+    }
+
+    @Override
+    public int close() throws SenderException {
+        try {
+            return flush();
+        } finally {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Converts a finished span into the Thrift span that is batched
+     */
+    protected Span convert(com.uber.jaeger.Span span) {
+        Span thriftSpan = JaegerThriftSpanConverter.convertSpan(span);
+        if (tagGuard != null && thriftSpan.getTags() != null) {
+            for (Tag tag : thriftSpan.getTags()) {
+                tag.setKey(tagGuard.key(tag.getKey()));
+                if (tag.getVType() == TagType.STRING) {
+                    tag.setVStr((String) tagGuard.value(tag.getKey(), tag.getVStr()));
+                }
+            }
+        }
+        return thriftSpan;
+    }
+
+    /**
+     * Called for every converted span once it has been sent or dropped
+     */
+    protected void release(Span thriftSpan) {
+    }
+
+    /**
+     * Called after every batch has been handed to the delegate
+     */
+    protected void flushed() {
+    }
+
+    /**
+     * @return the number of converted spans waiting to be sent
+     */
+    protected int bufferedSpans() {
+        int n = 0;
+        for (ProcessBatch batch : batches.values()) {
+            n += batch.spans.size();
+        }
+        return n;
+    }
+
+    protected ThriftSender getDelegate() {
+        return delegate;
+    }
+
+    protected int getMaxSpanBytes() {
+        return maxSpanBytes;
+    }
+
+    private int getSizeOfSerializedThrift(TBase<?, ?> thriftBase) throws SenderException {
+        memoryTransport.reset();
+        try {
+            thriftBase.write(protocolFactory.getProtocol(memoryTransport));
+        } catch (TException e) {
+            throw new SenderException(getClass().getSimpleName() + " failed writing to memory buffer.", e, 1);
+        }
+        return memoryTransport.getPos();
+    }
+
+    private final class ProcessBatch {
+
+        private final Process process;
+        private final int processBytesSize;
+        private final List<Span> spans = new ArrayList<>();
+        private int byteBufferSize;
+
+        private ProcessBatch(com.uber.jaeger.Tracer tracer) throws SenderException {
+            process = new Process(tracer.getServiceName());
+            process.setTags(JaegerThriftSpanConverter.buildTags(tracer.tags()));
+            processBytesSize = getSizeOfSerializedThrift(process);
+            byteBufferSize = processBytesSize;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BatchingThriftSender(delegate=" + delegate + ", maxSpanBytes=" + maxSpanBytes
+                + ", tagGuard=" + tagGuard + ")";
+    }
+}
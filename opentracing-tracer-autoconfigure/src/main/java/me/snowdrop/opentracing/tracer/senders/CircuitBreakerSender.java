@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.metrics.Counter;
+import com.uber.jaeger.metrics.StatsFactory;
+import com.uber.jaeger.senders.Sender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sender that stops using its delegate after a number of consecutive failures.
+ *
+ * While the circuit is open, spans are dropped before they reach the delegate, so they are neither
+ * serialized nor sent. Once the backoff period has elapsed the spans are handed to the delegate again
+ * and the outcome of the next flush decides whether the circuit closes or opens again,
+ * in which case the backoff period is doubled up to a maximum.
+ *
+ * Like every Sender used by {@link com.uber.jaeger.reporters.RemoteReporter},
+ * this class is only ever called from the reporter's queue processor thread
+ */
+public class CircuitBreakerSender implements Sender {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerSender.class);
+
+    private final Sender delegate;
+    private final int failureThreshold;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private final Counter closedTransitions;
+    private final Counter openTransitions;
+    private final Counter halfOpenTransitions;
+    private final Counter droppedSpans;
+
+    private volatile State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long backoffNanos;
+    private long openUntilNanos;
+
+    public CircuitBreakerSender(Sender delegate, int failureThreshold, long initialBackoff, long maxBackoff,
+                                StatsFactory statsFactory) {
+        this.delegate = delegate;
+        this.failureThreshold = failureThreshold;
+        this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(initialBackoff);
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoff);
+        this.backoffNanos = initialBackoffNanos;
+
+        this.closedTransitions = statsFactory.createCounter("jaeger.sender-circuit",
+                Collections.singletonMap("state", "closed"));
+        this.openTransitions = statsFactory.createCounter("jaeger.sender-circuit",
+                Collections.singletonMap("state", "open"));
+        this.halfOpenTransitions = statsFactory.createCounter("jaeger.sender-circuit",
+                Collections.singletonMap("state", "half-open"));
+        this.droppedSpans = statsFactory.createCounter("jaeger.sender-circuit-dropped", Collections.emptyMap());
+    }
+
+    @Override
+    public int append(Span span) throws SenderException {
+        if (isOpen()) {
+            droppedSpans.inc(1);
+            return 0;
+        }
+
+        try {
+            return succeeded(delegate.append(span));
+        } catch (SenderException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public int flush() throws SenderException {
+        if (isOpen()) {
+            return 0;
+        }
+
+        try {
+            return succeeded(delegate.flush());
+        } catch (SenderException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public int close() throws SenderException {
+        return delegate.close();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Sender getDelegate() {
+        return delegate;
+    }
+
+    private boolean isOpen() {
+        if (state != State.OPEN) {
+            return false;
+        }
+        if (System.nanoTime() - openUntilNanos < 0) {
+            return true;
+        }
+
+        state = State.HALF_OPEN;
+        halfOpenTransitions.inc(1);
+        log.info("Probing {} again after {} ms", delegate, TimeUnit.NANOSECONDS.toMillis(backoffNanos));
+        backoffNanos = Math.min(backoffNanos * 2, maxBackoffNanos);
+        return false;
+    }
+
+    private int succeeded(int n) {
+        if (n > 0) {
+            consecutiveFailures = 0;
+            if (state == State.HALF_OPEN) {
+                state = State.CLOSED;
+                backoffNanos = initialBackoffNanos;
+                closedTransitions.inc(1);
+                log.info("{} is sending spans again, closing the circuit", delegate);
+            }
+        }
+        return n;
+    }
+
+    private SenderException failed(SenderException e) {
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openUntilNanos = System.nanoTime() + backoffNanos;
+            openTransitions.inc(1);
+            log.warn("{} failed {} times in a row, dropping spans for {} ms",
+                    delegate, Math.max(consecutiveFailures, 1), TimeUnit.NANOSECONDS.toMillis(backoffNanos));
+        }
+        return e;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerSender(delegate=" + delegate + ", state=" + state + ")";
+    }
+}
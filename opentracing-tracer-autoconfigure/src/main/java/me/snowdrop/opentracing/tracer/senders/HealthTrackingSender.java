@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.senders.Sender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sender that considers its delegate unavailable after a number of consecutive failures.
+ * The delegate stays unavailable for a backoff period that doubles with every further failure,
+ * up to a maximum, and becomes available again as soon as it succeeds once.
+ *
+ * Only the availability is tracked, spans keep being handed to the delegate
+ */
+public class HealthTrackingSender implements Sender {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthTrackingSender.class);
+
+    private final Sender delegate;
+    private final int failureThreshold;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private int consecutiveFailures;
+    private long backoffNanos;
+    private volatile long unavailableUntilNanos;
+    private volatile boolean unavailable;
+
+    public HealthTrackingSender(Sender delegate, int failureThreshold, long initialBackoff, long maxBackoff) {
+        this.delegate = delegate;
+        this.failureThreshold = failureThreshold;
+        this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(initialBackoff);
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoff);
+        this.backoffNanos = initialBackoffNanos;
+    }
+
+    @Override
+    public int append(Span span) throws SenderException {
+        try {
+            return succeeded(delegate.append(span));
+        } catch (SenderException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public int flush() throws SenderException {
+        try {
+            return succeeded(delegate.flush());
+        } catch (SenderException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public int close() throws SenderException {
+        return delegate.close();
+    }
+
+    /**
+     * @return false while the delegate is backing off after repeated failures
+     */
+    public boolean isAvailable() {
+        return !unavailable || System.nanoTime() - unavailableUntilNanos >= 0;
+    }
+
+    private int succeeded(int n) {
+        if (n > 0 && consecutiveFailures > 0) {
+            if (unavailable) {
+                log.info("{} is available again", delegate);
+            }
+            consecutiveFailures = 0;
+            backoffNanos = initialBackoffNanos;
+            unavailable = false;
+        }
+        return n;
+    }
+
+    private SenderException failed(SenderException e) {
+        if (++consecutiveFailures >= failureThreshold) {
+            unavailableUntilNanos = System.nanoTime() + backoffNanos;
+            unavailable = true;
+            log.warn("{} failed {} times in a row, considering it unavailable for {} ms",
+                    delegate, consecutiveFailures, TimeUnit.NANOSECONDS.toMillis(backoffNanos));
+            backoffNanos = Math.min(backoffNanos * 2, maxBackoffNanos);
+        }
+        return e;
+    }
+
+    public Sender getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "HealthTrackingSender(delegate=" + delegate + ")";
+    }
+}
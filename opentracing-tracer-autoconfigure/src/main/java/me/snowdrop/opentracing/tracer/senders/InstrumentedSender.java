@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.senders.Sender;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sender that records how long its delegate takes to flush and the errors it runs into.
+ * Only flushes are timed, appending a span costs a single extra method call
+ *
+ * The reporter's queue processor thread is the only caller of the sender, except for the actuator endpoint
+ * which flushes it on demand. Calls are therefore serialized, a lock that is uncontended but for those flushes.
+ * The statistics are safe to read from any thread
+ */
+public class InstrumentedSender implements Sender {
+
+    private final Sender delegate;
+
+    private volatile long flushes;
+    private volatile long sentSpans;
+    private volatile long failedSpans;
+    private volatile long lastFlushMicros;
+    private volatile long maxFlushMicros;
+    private volatile String lastError;
+
+    public InstrumentedSender(Sender delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized int append(Span span) throws SenderException {
+        try {
+            return sent(delegate.append(span));
+        } catch (SenderException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public synchronized int flush() throws SenderException {
+        long start = System.nanoTime();
+        try {
+            return sent(delegate.flush());
+        } catch (SenderException e) {
+            throw failed(e);
+        } finally {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            flushes++;
+            lastFlushMicros = micros;
+            if (micros > maxFlushMicros) {
+                maxFlushMicros = micros;
+            }
+        }
+    }
+
+    @Override
+    public synchronized int close() throws SenderException {
+        try {
+            return sent(delegate.close());
+        } catch (SenderException e) {
+            throw failed(e);
+        }
+    }
+
+    private int sent(int n) {
+        if (n > 0) {
+            sentSpans += n;
+        }
+        return n;
+    }
+
+    private SenderException failed(SenderException e) {
+        failedSpans += e.getDroppedSpanCount();
+        lastError = e.getMessage();
+        return e;
+    }
+
+    public Sender getDelegate() {
+        return delegate;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("sender", delegate.toString());
+        statistics.put("flushes", flushes);
+        statistics.put("sentSpans", sentSpans);
+        statistics.put("failedSpans", failedSpans);
+        statistics.put("lastFlushMicros", lastFlushMicros);
+        statistics.put("maxFlushMicros", maxFlushMicros);
+        statistics.put("lastError", lastError);
+        return statistics;
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentedSender(delegate=" + delegate + ")";
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.senders.Sender;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * Sender exporting spans to an OpenTelemetry collector as OTLP protobuf over HTTP
+ * (an {@code ExportTraceServiceRequest} POSTed to e.g. http://collector:4318/v1/traces).
+ *
+ * Spans are encoded as they are appended, straight into a reusable buffer, and the batch is sent
+ * once it has grown past {@code maxPayload} bytes or when the reporter flushes.
+ *
+ * Like every Sender used by {@link com.uber.jaeger.reporters.RemoteReporter},
+ * this class is only ever called from the reporter's queue processor thread
+ */
+public class OtlpHttpSender implements Sender {
+
+    private static final MediaType MEDIA_TYPE_PROTOBUF = MediaType.parse("application/x-protobuf");
+
+    private static final String SCOPE_NAME = "me.snowdrop.opentracing.tracer";
+
+    private static final int DEFAULT_MAX_PAYLOAD = 1048576;
+
+    // field numbers of opentelemetry/proto/collector/trace/v1/trace_service.proto and the messages it uses
+    private static final int REQUEST_RESOURCE_SPANS = 1;
+    private static final int RESOURCE_SPANS_RESOURCE = 1;
+    private static final int RESOURCE_SPANS_SCOPE_SPANS = 2;
+    private static final int SCOPE_SPANS_SCOPE = 1;
+    private static final int SCOPE_SPANS_SPANS = 2;
+    private static final int SCOPE_NAME_FIELD = 1;
+
+    private final String url;
+    private final OkHttpClient httpClient;
+    private final Request.Builder requestBuilder;
+    private final int maxPayload;
+    private final ProtobufWriter writer;
+    private final TagGuard tagGuard;
+
+    private int resourceSpans;
+    private int scopeSpans;
+    private int spanCount;
+    private Tracer resourceTracer;
+
+    public OtlpHttpSender(String url, int maxPayload) {
+        this(url, maxPayload, null);
+    }
+
+    /**
+     * @param tagGuard the guard the span tags go through, or null
+     */
+    public OtlpHttpSender(String url, int maxPayload, TagGuard tagGuard) {
+        this(url, maxPayload, tagGuard, new OkHttpClient());
+    }
+
+    public OtlpHttpSender(String url, int maxPayload, TagGuard tagGuard, OkHttpClient httpClient) {
+        if (maxPayload == 0) {
+            maxPayload = DEFAULT_MAX_PAYLOAD;
+        }
+
+        this.url = url;
+        this.httpClient = httpClient;
+        this.requestBuilder = new Request.Builder().url(url);
+        this.maxPayload = maxPayload;
+        this.writer = new ProtobufWriter(Math.min(maxPayload, 64 * 1024));
+        this.tagGuard = tagGuard;
+    }
+
+    @Override
+    public int append(Span span) throws SenderException {
+        if (spanCount == 0) {
+            writer.reset();
+            beginResource(span.getTracer());
+        } else if (span.getTracer() != resourceTracer) {
+            // tracers of several services share the reporter, every one of them is a resource of the request
+            writer.endMessage(scopeSpans);
+            writer.endMessage(resourceSpans);
+            beginResource(span.getTracer());
+        }
+
+        OtlpSpanEncoder.writeSpan(writer, SCOPE_SPANS_SPANS, span, tagGuard);
+        spanCount++;
+
+        if (writer.size() >= maxPayload) {
+            return flush();
+        }
+        return 0;
+    }
+
+    @Override
+    public int flush() throws SenderException {
+        if (spanCount == 0) {
+            return 0;
+        }
+
+        int n = spanCount;
+        spanCount = 0;
+        resourceTracer = null;
+        writer.endMessage(scopeSpans);
+        writer.endMessage(resourceSpans);
+
+        Request request = requestBuilder
+                .post(RequestBody.create(MEDIA_TYPE_PROTOBUF, writer.buffer(), 0, writer.size()))
+                .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new SenderException(String.format("Could not send %d spans, response %d: %s",
+                        n, response.code(), response.message()), null, n);
+            }
+        } catch (IOException e) {
+            throw new SenderException(String.format("Could not send %d spans", n), e, n);
+        }
+        return n;
+    }
+
+    @Override
+    public int close() throws SenderException {
+        return flush();
+    }
+
+    private void beginResource(Tracer tracer) {
+        resourceTracer = tracer;
+        resourceSpans = writer.beginMessage(REQUEST_RESOURCE_SPANS);
+
+        OtlpSpanEncoder.writeResource(writer, RESOURCE_SPANS_RESOURCE, tracer);
+
+        scopeSpans = writer.beginMessage(RESOURCE_SPANS_SCOPE_SPANS);
+        int scope = writer.beginMessage(SCOPE_SPANS_SCOPE);
+        writer.writeString(SCOPE_NAME_FIELD, SCOPE_NAME);
+        writer.endMessage(scope);
+    }
+
+    @Override
+    public String toString() {
+        return "OtlpHttpSender(url=" + url + ", maxPayload=" + maxPayload + ")";
+    }
+}
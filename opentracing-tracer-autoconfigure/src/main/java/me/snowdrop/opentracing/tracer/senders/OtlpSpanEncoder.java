@@ -0,0 +1,194 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.LogData;
+import com.uber.jaeger.Reference;
+import com.uber.jaeger.Span;
+import com.uber.jaeger.SpanContext;
+import com.uber.jaeger.Tracer;
+import io.opentracing.tag.Tags;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes Jaeger spans as the OTLP {@code Span} and {@code Resource} messages
+ * of opentelemetry/proto/trace/v1/trace.proto and opentelemetry/proto/resource/v1/resource.proto.
+ *
+ * The field numbers are public so that the messages can be decoded again, see
+ * {@link me.snowdrop.opentracing.tracer.reporters.SpanFileReader}
+ */
+public final class OtlpSpanEncoder {
+
+    public static final int RESOURCE_ATTRIBUTES = 1;
+    public static final int SPAN_TRACE_ID = 1;
+    public static final int SPAN_SPAN_ID = 2;
+    public static final int SPAN_PARENT_SPAN_ID = 4;
+    public static final int SPAN_NAME = 5;
+    public static final int SPAN_KIND = 6;
+    public static final int SPAN_START_TIME = 7;
+    public static final int SPAN_END_TIME = 8;
+    public static final int SPAN_ATTRIBUTES = 9;
+    public static final int SPAN_EVENTS = 11;
+    public static final int SPAN_LINKS = 13;
+    public static final int SPAN_STATUS = 15;
+    public static final int EVENT_TIME = 1;
+    public static final int EVENT_NAME = 2;
+    public static final int EVENT_ATTRIBUTES = 3;
+    public static final int LINK_TRACE_ID = 1;
+    public static final int LINK_SPAN_ID = 2;
+    public static final int STATUS_CODE = 3;
+    public static final int KEY_VALUE_KEY = 1;
+    public static final int KEY_VALUE_VALUE = 2;
+    public static final int ANY_VALUE_STRING = 1;
+    public static final int ANY_VALUE_BOOL = 2;
+    public static final int ANY_VALUE_INT = 3;
+    public static final int ANY_VALUE_DOUBLE = 4;
+
+    public static final int SPAN_KIND_INTERNAL = 1;
+    public static final int SPAN_KIND_SERVER = 2;
+    public static final int SPAN_KIND_CLIENT = 3;
+    public static final int SPAN_KIND_PRODUCER = 4;
+    public static final int SPAN_KIND_CONSUMER = 5;
+    public static final int STATUS_CODE_ERROR = 2;
+
+    public static final String SERVICE_NAME_ATTRIBUTE = "service.name";
+
+    /**
+     * OTLP trace IDs are 16 bytes long, Jaeger ones are the low 8 bytes
+     */
+    private static final int TRACE_ID_HIGH_BYTES = 8;
+
+    private OtlpSpanEncoder() {
+    }
+
+    /**
+     * Writes a {@code Resource} describing the service of the tracer
+     */
+    public static void writeResource(ProtobufWriter writer, int field, Tracer tracer) {
+        int resource = writer.beginMessage(field);
+        writeAttribute(writer, RESOURCE_ATTRIBUTES, SERVICE_NAME_ATTRIBUTE, tracer.getServiceName());
+        for (Map.Entry<String, ?> tag : tracer.tags().entrySet()) {
+            writeAttribute(writer, RESOURCE_ATTRIBUTES, tag.getKey(), tag.getValue());
+        }
+        writer.endMessage(resource);
+    }
+
+    public static void writeSpan(ProtobufWriter writer, int field, Span span) {
+        writeSpan(writer, field, span, null);
+    }
+
+    /**
+     * Writes a {@code Span}, the values of its attributes going through {@code tagGuard} when it is not null
+     */
+    public static void writeSpan(ProtobufWriter writer, int field, Span span, TagGuard tagGuard) {
+        SpanContext context = span.context();
+        Map<String, Object> tags = span.getTags();
+
+        int message = writer.beginMessage(field);
+        writer.writeId(SPAN_TRACE_ID, context.getTraceId(), TRACE_ID_HIGH_BYTES);
+        writer.writeId(SPAN_SPAN_ID, context.getSpanId(), 0);
+        if (context.getParentId() != 0) {
+            writer.writeId(SPAN_PARENT_SPAN_ID, context.getParentId(), 0);
+        }
+        writer.writeString(SPAN_NAME, span.getOperationName());
+        writer.writeInt64(SPAN_KIND, spanKind(tags.get(Tags.SPAN_KIND.getKey())));
+        writer.writeFixed64(SPAN_START_TIME, span.getStart() * 1000);
+        writer.writeFixed64(SPAN_END_TIME, (span.getStart() + span.getDuration()) * 1000);
+
+        for (Map.Entry<String, Object> tag : tags.entrySet()) {
+            if (Tags.SPAN_KIND.getKey().equals(tag.getKey())) {
+                continue;
+            }
+            if (tagGuard != null) {
+                String key = tagGuard.key(tag.getKey());
+                writeAttribute(writer, SPAN_ATTRIBUTES, key, tagGuard.value(key, tag.getValue()));
+            } else {
+                writeAttribute(writer, SPAN_ATTRIBUTES, tag.getKey(), tag.getValue());
+            }
+        }
+
+        List<LogData> logs = span.getLogs();
+        if (logs != null) {
+            for (LogData log : logs) {
+                writeEvent(writer, log);
+            }
+        }
+
+        for (Reference reference : span.getReferences()) {
+            SpanContext referenced = reference.getSpanContext();
+            if (referenced.getSpanId() != context.getParentId()) {
+                int link = writer.beginMessage(SPAN_LINKS);
+                writer.writeId(LINK_TRACE_ID, referenced.getTraceId(), TRACE_ID_HIGH_BYTES);
+                writer.writeId(LINK_SPAN_ID, referenced.getSpanId(), 0);
+                writer.endMessage(link);
+            }
+        }
+
+        if (Boolean.TRUE.equals(tags.get(Tags.ERROR.getKey()))) {
+            int status = writer.beginMessage(SPAN_STATUS);
+            writer.writeInt64(STATUS_CODE, STATUS_CODE_ERROR);
+            writer.endMessage(status);
+        }
+
+        writer.endMessage(message);
+    }
+
+    private static void writeEvent(ProtobufWriter writer, LogData log) {
+        int event = writer.beginMessage(SPAN_EVENTS);
+        writer.writeFixed64(EVENT_TIME, log.getTime() * 1000);
+        Map<String, ?> fields = log.getFields();
+        if (fields != null) {
+            Object name = fields.get("event");
+            writer.writeString(EVENT_NAME, name != null ? name.toString() : "log");
+            for (Map.Entry<String, ?> field : fields.entrySet()) {
+                writeAttribute(writer, EVENT_ATTRIBUTES, field.getKey(), field.getValue());
+            }
+        } else if (log.getMessage() != null) {
+            writer.writeString(EVENT_NAME, log.getMessage());
+        }
+        writer.endMessage(event);
+    }
+
+    private static void writeAttribute(ProtobufWriter writer, int field, String key, Object value) {
+        int keyValue = writer.beginMessage(field);
+        writer.writeString(KEY_VALUE_KEY, key);
+        int anyValue = writer.beginMessage(KEY_VALUE_VALUE);
+        if (value instanceof Boolean) {
+            writer.writeBool(ANY_VALUE_BOOL, (Boolean) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writer.writeInt64(ANY_VALUE_INT, ((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writer.writeDouble(ANY_VALUE_DOUBLE, ((Number) value).doubleValue());
+        } else {
+            writer.writeString(ANY_VALUE_STRING, String.valueOf(value));
+        }
+        writer.endMessage(anyValue);
+        writer.endMessage(keyValue);
+    }
+
+    private static int spanKind(Object kind) {
+        if (Tags.SPAN_KIND_SERVER.equals(kind)) {
+            return SPAN_KIND_SERVER;
+        } else if (Tags.SPAN_KIND_CLIENT.equals(kind)) {
+            return SPAN_KIND_CLIENT;
+        } else if (Tags.SPAN_KIND_PRODUCER.equals(kind)) {
+            return SPAN_KIND_PRODUCER;
+        } else if (Tags.SPAN_KIND_CONSUMER.equals(kind)) {
+            return SPAN_KIND_CONSUMER;
+        }
+        return SPAN_KIND_INTERNAL;
+    }
+}
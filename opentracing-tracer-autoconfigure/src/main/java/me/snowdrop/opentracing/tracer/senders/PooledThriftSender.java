@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.senders.ThriftSender;
+import com.uber.jaeger.thriftjava.Span;
+import org.apache.thrift.protocol.TProtocolFactory;
+
+/**
+ * Sender that batches spans like {@link BatchingThriftSender},
+ * but converts them into Thrift spans taken from a {@link ThriftSpanPool}.
+ * The spans are handed back to the pool as soon as the delegate has serialized the batch
+ */
+public class PooledThriftSender extends BatchingThriftSender {
+
+    private final ThriftSpanPool pool;
+
+    /**
+     * @param delegate the sender that performs the actual transmission of the batches
+     * @param protocolFactory the protocol the delegate uses, needed to compute the size of the batches
+     * @param maxPacketSize the same size limit that was used to construct the delegate
+     * @param pool the pool to convert spans with, which applies its own {@link TagGuard}
+     */
+    public PooledThriftSender(ThriftSender delegate, TProtocolFactory protocolFactory,
+                              int maxPacketSize, ThriftSpanPool pool) {
+        super(delegate, protocolFactory, maxPacketSize, null);
+        this.pool = pool;
+    }
+
+    @Override
+    protected Span convert(com.uber.jaeger.Span span) {
+        return pool.acquire(span);
+    }
+
+    @Override
+    protected void release(Span thriftSpan) {
+        pool.release(thriftSpan);
+    }
+
+    @Override
+    protected void flushed() {
+        pool.checkOutstanding(bufferedSpans());
+    }
+
+    public ThriftSpanPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public String toString() {
+        return "PooledThriftSender(delegate=" + getDelegate() + ", maxSpanBytes=" + getMaxSpanBytes() + ")";
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal protocol buffers decoder for the messages written by {@link ProtobufWriter}.
+ *
+ * Usage is to call {@link #readTag()} until it returns 0, then one of the {@code read} methods
+ * matching the field, or {@link #skip()} for unknown fields.
+ * A zero byte where a tag is expected is treated as the end of the input
+ */
+public class ProtobufReader {
+
+    private static final int WIRETYPE_VARINT = 0;
+    private static final int WIRETYPE_FIXED64 = 1;
+    private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+    private static final int WIRETYPE_FIXED32 = 5;
+
+    private final ByteBuffer buffer;
+    private int wireType;
+
+    /**
+     * Reads from the position to the limit of {@code buffer}, without modifying it
+     */
+    public ProtobufReader(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    /**
+     * @return the field number of the next field, or 0 once the input is exhausted
+     */
+    public int readTag() {
+        if (!buffer.hasRemaining()) {
+            return 0;
+        }
+        long tag = readVarint();
+        wireType = (int) (tag & 0x7);
+        return (int) (tag >>> 3);
+    }
+
+    public long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    public boolean readBool() {
+        return readVarint() != 0;
+    }
+
+    public long readFixed64() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 8) {
+            value |= (long) (buffer.get() & 0xFF) << shift;
+        }
+        return value;
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readFixed64());
+    }
+
+    public String readString() {
+        ByteBuffer bytes = readLengthDelimited();
+        byte[] value = new byte[bytes.remaining()];
+        bytes.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read an id written with {@link ProtobufWriter#writeId(int, long, int)}
+     *
+     * @return the last 8 bytes of the id
+     */
+    public long readId() {
+        ByteBuffer bytes = readLengthDelimited();
+        long value = 0;
+        for (int i = Math.max(0, bytes.remaining() - 8); i < bytes.remaining(); i++) {
+            value = (value << 8) | (bytes.get(bytes.position() + i) & 0xFF);
+        }
+        return value;
+    }
+
+    public ProtobufReader readMessage() {
+        return new ProtobufReader(readLengthDelimited());
+    }
+
+    /**
+     * Skip the value of the field whose tag was just read
+     */
+    public void skip() {
+        switch (wireType) {
+            case WIRETYPE_VARINT:
+                readVarint();
+                break;
+            case WIRETYPE_FIXED64:
+                advance(8);
+                break;
+            case WIRETYPE_LENGTH_DELIMITED:
+                readLengthDelimited();
+                break;
+            case WIRETYPE_FIXED32:
+                advance(4);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported wire type " + wireType);
+        }
+    }
+
+    private ByteBuffer readLengthDelimited() {
+        int length = (int) readVarint();
+        ByteBuffer bytes = buffer.slice();
+        bytes.limit(length);
+        advance(length);
+        return bytes;
+    }
+
+    private void advance(int length) {
+        buffer.position(buffer.position() + length);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import java.util.Arrays;
+
+/**
+ * Minimal protocol buffers encoder writing into a reusable, growing byte array.
+ *
+ * Embedded messages are written in a single pass: {@link #beginMessage(int)} reserves room for the length
+ * of the message, which {@link #endMessage(int)} fills in once the message is complete.
+ * The length is written as a 4 byte varint padded with continuation bits, which every protobuf decoder accepts
+ * and which limits embedded messages to 256 MiB
+ */
+public class ProtobufWriter {
+
+    private static final int WIRETYPE_VARINT = 0;
+    private static final int WIRETYPE_FIXED64 = 1;
+    private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+
+    private static final int RESERVED_LENGTH_BYTES = 4;
+    private static final int MAX_RESERVED_LENGTH = (1 << (7 * RESERVED_LENGTH_BYTES)) - 1;
+
+    private byte[] buffer;
+    private int position;
+
+    public ProtobufWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public void reset() {
+        position = 0;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Start an embedded message
+     *
+     * @return the token to pass to {@link #endMessage(int)}
+     */
+    public int beginMessage(int field) {
+        writeTag(field, WIRETYPE_LENGTH_DELIMITED);
+        ensureCapacity(RESERVED_LENGTH_BYTES);
+        int lengthPosition = position;
+        position += RESERVED_LENGTH_BYTES;
+        return lengthPosition;
+    }
+
+    public void endMessage(int lengthPosition) {
+        int length = position - lengthPosition - RESERVED_LENGTH_BYTES;
+        if (length > MAX_RESERVED_LENGTH) {
+            throw new IllegalStateException("Embedded message of " + length + " bytes is too large");
+        }
+        for (int i = 0; i < RESERVED_LENGTH_BYTES - 1; i++) {
+            buffer[lengthPosition + i] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        buffer[lengthPosition + RESERVED_LENGTH_BYTES - 1] = (byte) length;
+    }
+
+    public void writeString(int field, String value) {
+        writeTag(field, WIRETYPE_LENGTH_DELIMITED);
+        int length = utf8Length(value);
+        writeVarint(length);
+        ensureCapacity(length);
+        position = encodeUtf8(value, buffer, position);
+    }
+
+    /**
+     * Write {@code value} as 8 big-endian bytes, preceded by {@code leadingZeros} zero bytes
+     */
+    public void writeId(int field, long value, int leadingZeros) {
+        writeTag(field, WIRETYPE_LENGTH_DELIMITED);
+        writeVarint(leadingZeros + 8);
+        ensureCapacity(leadingZeros + 8);
+        for (int i = 0; i < leadingZeros; i++) {
+            buffer[position++] = 0;
+        }
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    public void writeInt64(int field, long value) {
+        writeTag(field, WIRETYPE_VARINT);
+        writeVarint(value);
+    }
+
+    public void writeBool(int field, boolean value) {
+        writeTag(field, WIRETYPE_VARINT);
+        writeVarint(value ? 1 : 0);
+    }
+
+    public void writeFixed64(int field, long value) {
+        writeTag(field, WIRETYPE_FIXED64);
+        ensureCapacity(8);
+        for (int shift = 0; shift < 64; shift += 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    public void writeDouble(int field, double value) {
+        writeFixed64(field, Double.doubleToRawLongBits(value));
+    }
+
+    private void writeTag(int field, int wireType) {
+        writeVarint((field << 3) | wireType);
+    }
+
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (position + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+        }
+    }
+
+    /**
+     * Unpaired surrogates are replaced with '?', like {@link String#getBytes(java.nio.charset.Charset)} does
+     */
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (!Character.isSurrogate(c)) {
+                length += 3;
+            } else if (isSurrogatePair(value, i)) {
+                length += 4;
+                i++;
+            } else {
+                length += 1;
+            }
+        }
+        return length;
+    }
+
+    private static int encodeUtf8(String value, byte[] buffer, int position) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >>> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                buffer[position++] = (byte) (0xE0 | (c >>> 12));
+                buffer[position++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (isSurrogatePair(value, i)) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >>> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[position++] = '?';
+            }
+        }
+        return position;
+    }
+
+    private static boolean isSurrogatePair(String value, int i) {
+        return Character.isHighSurrogate(value.charAt(i)) && i + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(i + 1));
+    }
+}
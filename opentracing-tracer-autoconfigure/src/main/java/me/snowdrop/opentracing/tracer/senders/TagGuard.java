@@ -0,0 +1,165 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.metrics.Counter;
+import com.uber.jaeger.metrics.StatsFactory;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the size and the cardinality of the string tag values that are sent, used while converting spans to Thrift.
+ *
+ * Values longer than {@code maxValueLength} are truncated, or replaced with a hash of the complete value when
+ * {@code hashLongValues} is set, which keeps different values distinguishable.
+ * For each of the first {@code maxKeys} tag keys, a table remembers up to {@code maxValuesPerKey} distinct values:
+ * the keys and values found in the tables are replaced by the same canonical instance, so that long-lived
+ * Thrift objects do not keep a copy of them per span, and values that no longer fit in the table of their key
+ * are replaced with {@link #OVERFLOW_VALUE}.
+ * The keys that do not get a table of their own share a single one, so their values are limited as a whole.
+ * All the tables are cleared every {@code resetInterval} milliseconds, which bounds the cardinality per interval
+ * and lets values that stopped being used make room for new ones.
+ *
+ * Safe to share between senders
+ */
+public class TagGuard {
+
+    public static final String OVERFLOW_VALUE = "<other>";
+
+    private static final String HASH_PREFIX = "#";
+
+    private final int maxValueLength;
+    private final boolean hashLongValues;
+    private final int maxKeys;
+    private final int maxValuesPerKey;
+    private final long resetIntervalNanos;
+    private final AtomicLong nextReset;
+    private final ConcurrentMap<String, ValueTable> tables = new ConcurrentHashMap<>();
+    private final ValueTable overflowTable = new ValueTable(null);
+    private final Counter truncated;
+    private final Counter hashed;
+    private final Counter overflowed;
+
+    public TagGuard(int maxValueLength, boolean hashLongValues, int maxKeys, int maxValuesPerKey,
+                    int resetInterval, StatsFactory statsFactory) {
+        this.maxValueLength = maxValueLength;
+        this.hashLongValues = hashLongValues;
+        this.maxKeys = maxKeys;
+        this.maxValuesPerKey = maxValuesPerKey;
+        this.resetIntervalNanos = TimeUnit.MILLISECONDS.toNanos(resetInterval);
+        this.nextReset = new AtomicLong(System.nanoTime() + resetIntervalNanos);
+        this.truncated = statsFactory.createCounter("jaeger.tag-guard", Collections.singletonMap("action", "truncated"));
+        this.hashed = statsFactory.createCounter("jaeger.tag-guard", Collections.singletonMap("action", "hashed"));
+        this.overflowed = statsFactory.createCounter("jaeger.tag-guard", Collections.singletonMap("action", "overflowed"));
+    }
+
+    /**
+     * @return the canonical instance of {@code key}
+     */
+    public String key(String key) {
+        ValueTable table = tables.get(key);
+        return table != null ? table.key : key;
+    }
+
+    /**
+     * @return the value to send for the tag {@code key}, which is {@code value} itself if it is not a string
+     */
+    public Object value(String key, Object value) {
+        if (!(value instanceof String)) {
+            return value;
+        }
+
+        String string = (String) value;
+        if (string.length() > maxValueLength) {
+            if (hashLongValues) {
+                string = HASH_PREFIX + Long.toHexString(hash(string));
+                hashed.inc(1);
+            } else {
+                string = string.substring(0, maxValueLength);
+                truncated.inc(1);
+            }
+        }
+
+        resetIfDue(System.nanoTime());
+        ValueTable table = table(key);
+        String canonical = table.values.get(string);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (table.values.size() >= maxValuesPerKey) {
+            overflowed.inc(1);
+            return OVERFLOW_VALUE;
+        }
+        canonical = table.values.putIfAbsent(string, string);
+        return canonical != null ? canonical : string;
+    }
+
+    /**
+     * Clears the tables when the reset interval elapsed, only one of the concurrent callers does
+     */
+    void resetIfDue(long now) {
+        long reset = nextReset.get();
+        if (now - reset >= 0 && nextReset.compareAndSet(reset, now + resetIntervalNanos)) {
+            tables.clear();
+            overflowTable.values.clear();
+        }
+    }
+
+    private ValueTable table(String key) {
+        ValueTable table = tables.get(key);
+        if (table == null) {
+            if (tables.size() >= maxKeys) {
+                return overflowTable;
+            }
+            ValueTable created = new ValueTable(key);
+            table = tables.putIfAbsent(key, created);
+            if (table == null) {
+                table = created;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the characters of the value
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static class ValueTable {
+        private final String key;
+        private final ConcurrentMap<String, String> values = new ConcurrentHashMap<>();
+
+        private ValueTable(String key) {
+            this.key = key;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TagGuard(maxValueLength=" + maxValueLength + ", hashLongValues=" + hashLongValues
+                + ", maxKeys=" + maxKeys + ", maxValuesPerKey=" + maxValuesPerKey
+                + ", resetInterval=" + TimeUnit.NANOSECONDS.toMillis(resetIntervalNanos) + ")";
+    }
+}
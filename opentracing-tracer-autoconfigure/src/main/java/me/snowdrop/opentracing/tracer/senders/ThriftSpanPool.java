@@ -0,0 +1,233 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.LogData;
+import com.uber.jaeger.Reference;
+import com.uber.jaeger.SpanContext;
+import com.uber.jaeger.thriftjava.Log;
+import com.uber.jaeger.thriftjava.Span;
+import com.uber.jaeger.thriftjava.SpanRef;
+import com.uber.jaeger.thriftjava.SpanRefType;
+import com.uber.jaeger.thriftjava.Tag;
+import com.uber.jaeger.thriftjava.TagType;
+import io.opentracing.References;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pool of Thrift spans that are converted in place from finished Jaeger spans.
+ * The conversion produces the same result as
+ * {@link com.uber.jaeger.reporters.protocols.JaegerThriftSpanConverter#convertSpan(com.uber.jaeger.Span)}
+ * but reuses the span, tag, log and reference objects of previously released spans
+ *
+ * When a {@link TagGuard} is given, the values of the span tags go through it
+ *
+ * The pool is not thread-safe, it is meant to be owned by the single thread that drives a Sender
+ */
+public class ThriftSpanPool {
+
+    private static final Logger log = LoggerFactory.getLogger(ThriftSpanPool.class);
+
+    private final Deque<Span> free = new ArrayDeque<>();
+
+    private final int maxSize;
+
+    private final Set<Span> borrowed;
+
+    private final TagGuard tagGuard;
+
+    private int outstanding;
+
+    public ThriftSpanPool(int maxSize, boolean leakDetection) {
+        this(maxSize, leakDetection, null);
+    }
+
+    public ThriftSpanPool(int maxSize, boolean leakDetection, TagGuard tagGuard) {
+        this.maxSize = maxSize;
+        this.borrowed = leakDetection ? Collections.newSetFromMap(new IdentityHashMap<>()) : null;
+        this.tagGuard = tagGuard;
+    }
+
+    public Span acquire(com.uber.jaeger.Span span) {
+        Span thriftSpan = free.pollFirst();
+        if (thriftSpan == null) {
+            thriftSpan = new Span()
+                    .setReferences(new ArrayList<>(0))
+                    .setTags(new ArrayList<>())
+                    .setLogs(new ArrayList<>(0));
+        }
+
+        outstanding++;
+        if (borrowed != null) {
+            borrowed.add(thriftSpan);
+        }
+
+        return fill(thriftSpan, span);
+    }
+
+    public void release(Span thriftSpan) {
+        if (borrowed != null && !borrowed.remove(thriftSpan)) {
+            log.warn("Thrift span {} was released to the pool without being acquired from it", thriftSpan.getSpanId());
+            return;
+        }
+
+        outstanding--;
+        if (free.size() < maxSize) {
+            free.offerFirst(thriftSpan);
+        }
+    }
+
+    /**
+     * Number of spans that have been acquired and not released yet
+     */
+    public int getOutstanding() {
+        return outstanding;
+    }
+
+    /**
+     * Number of spans that are available for reuse
+     */
+    public int getPooled() {
+        return free.size();
+    }
+
+    /**
+     * Verifies that exactly the expected number of spans is still held by the owner of the pool.
+     * Only performs any work when leak detection is enabled
+     */
+    public void checkOutstanding(int expected) {
+        if (borrowed != null && outstanding != expected) {
+            log.warn("Thrift span pool leak detected: {} spans outstanding, {} expected", outstanding, expected);
+        }
+    }
+
+    private Span fill(Span target, com.uber.jaeger.Span span) {
+        SpanContext context = span.context();
+        List<Reference> references = span.getReferences();
+        boolean oneChildOfParent = references.size() == 1
+                && References.CHILD_OF.equals(references.get(0).getType());
+
+        target.setTraceIdLow(context.getTraceId())
+                .setTraceIdHigh(0)
+                .setSpanId(context.getSpanId())
+                .setParentSpanId(oneChildOfParent ? context.getParentId() : 0)
+                .setOperationName(span.getOperationName())
+                .setFlags(context.getFlags())
+                .setStartTime(span.getStart())
+                .setDuration(span.getDuration());
+
+        fillReferences(target.getReferences(),
+                oneChildOfParent ? Collections.<Reference>emptyList() : references);
+        fillSpanTags(target.getTags(), span.getTags());
+        fillLogs(target.getLogs(), span.getLogs());
+
+        return target;
+    }
+
+    private static void fillReferences(List<SpanRef> target, List<Reference> references) {
+        int i = 0;
+        for (Reference reference : references) {
+            SpanRef spanRef = i < target.size() ? target.get(i) : add(target, new SpanRef());
+            spanRef.setRefType(References.CHILD_OF.equals(reference.getType())
+                    ? SpanRefType.CHILD_OF : SpanRefType.FOLLOWS_FROM)
+                    .setTraceIdLow(reference.getSpanContext().getTraceId())
+                    .setTraceIdHigh(0)
+                    .setSpanId(reference.getSpanContext().getSpanId());
+            i++;
+        }
+        truncate(target, i);
+    }
+
+    private static void fillLogs(List<Log> target, List<LogData> logs) {
+        int i = 0;
+        if (logs != null) {
+            for (LogData logData : logs) {
+                Log thriftLog = i < target.size() ? target.get(i) : add(target, new Log().setFields(new ArrayList<>()));
+                thriftLog.setTimestamp(logData.getTime());
+                if (logData.getFields() != null) {
+                    fillTags(thriftLog.getFields(), logData.getFields());
+                } else if (logData.getMessage() != null) {
+                    List<Tag> fields = thriftLog.getFields();
+                    fillTag(fields.isEmpty() ? add(fields, new Tag()) : fields.get(0), "event", logData.getMessage());
+                    truncate(fields, 1);
+                } else {
+                    thriftLog.getFields().clear();
+                }
+                i++;
+            }
+        }
+        truncate(target, i);
+    }
+
+    private void fillSpanTags(List<Tag> target, Map<String, ?> tags) {
+        if (tagGuard == null) {
+            fillTags(target, tags);
+            return;
+        }
+
+        int i = 0;
+        for (Map.Entry<String, ?> entry : tags.entrySet()) {
+            String key = tagGuard.key(entry.getKey());
+            fillTag(i < target.size() ? target.get(i) : add(target, new Tag()), key, tagGuard.value(key, entry.getValue()));
+            i++;
+        }
+        truncate(target, i);
+    }
+
+    private static void fillTags(List<Tag> target, Map<String, ?> tags) {
+        int i = 0;
+        if (tags != null) {
+            for (Map.Entry<String, ?> entry : tags.entrySet()) {
+                fillTag(i < target.size() ? target.get(i) : add(target, new Tag()), entry.getKey(), entry.getValue());
+                i++;
+            }
+        }
+        truncate(target, i);
+    }
+
+    private static void fillTag(Tag tag, String key, Object value) {
+        tag.clear();
+        tag.setKey(key);
+        if (value instanceof Integer || value instanceof Short || value instanceof Long) {
+            tag.setVType(TagType.LONG).setVLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            tag.setVType(TagType.DOUBLE).setVDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            tag.setVType(TagType.BOOL).setVBool((Boolean) value);
+        } else {
+            tag.setVType(TagType.STRING).setVStr(String.valueOf(value));
+        }
+    }
+
+    private static <T> T add(List<T> list, T element) {
+        list.add(element);
+        return element;
+    }
+
+    private static void truncate(List<?> list, int size) {
+        if (list.size() > size) {
+            list.subList(size, list.size()).clear();
+        }
+    }
+}
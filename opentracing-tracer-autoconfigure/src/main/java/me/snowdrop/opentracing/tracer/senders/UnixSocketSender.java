@@ -0,0 +1,168 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.senders.ThriftSender;
+import com.uber.jaeger.thriftjava.Batch;
+import com.uber.jaeger.thriftjava.Process;
+import com.uber.jaeger.thriftjava.Span;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.AutoExpandingBufferWriteTransport;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/**
+ * Sender streaming batches to an agent listening on a Unix domain socket of the same host.
+ *
+ * Every batch is written as a 4 byte big-endian length followed by a Thrift {@link Batch} in the binary protocol.
+ * Unlike {@link com.uber.jaeger.senders.UdpSender} the size of a batch is not limited by the size of a datagram,
+ * and a lost connection is reported as a failure instead of silently losing the spans. The connection is opened
+ * on the first batch and opened again after a failure.
+ *
+ * Unix domain socket channels are only available from Java 16, they are looked up reflectively
+ * so that this class can be loaded on older versions, see {@link #isSupported()}
+ */
+public class UnixSocketSender extends ThriftSender {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1048576;
+
+    private static final int LENGTH_BYTES = 4;
+
+    private final String path;
+    private final TBinaryProtocol protocol;
+    private final AutoExpandingBufferWriteTransport memoryTransport;
+    private final ByteBuffer length = ByteBuffer.allocate(LENGTH_BYTES);
+
+    private SocketChannel channel;
+
+    /**
+     * @param path path of the socket the agent listens on
+     * @param maxBatchSize size in bytes above which batches are sent, 0 for the default
+     */
+    public UnixSocketSender(String path, int maxBatchSize) {
+        super(new TBinaryProtocol.Factory(), maxBatchSize == 0 ? DEFAULT_MAX_BATCH_SIZE : maxBatchSize);
+        if (!isSupported()) {
+            throw new IllegalStateException("Unix domain sockets require Java 16 or later");
+        }
+
+        this.path = path;
+        this.memoryTransport = new AutoExpandingBufferWriteTransport(
+                maxBatchSize == 0 ? DEFAULT_MAX_BATCH_SIZE : maxBatchSize, 1.5);
+        this.protocol = new TBinaryProtocol(memoryTransport);
+    }
+
+    /**
+     * @return whether the running JVM supports Unix domain socket channels
+     */
+    public static boolean isSupported() {
+        try {
+            Class.forName("java.net.UnixDomainSocketAddress");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void send(Process process, List<Span> spans) throws TException {
+        memoryTransport.reset();
+        new Batch(process, spans).write(protocol);
+        int size = memoryTransport.getPos();
+
+        length.clear();
+        length.putInt(size).flip();
+        ByteBuffer[] buffers = {length, ByteBuffer.wrap(memoryTransport.getBuf().array(), 0, size)};
+        try {
+            if (channel == null) {
+                channel = open(path);
+            }
+            while (buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+        } catch (IOException e) {
+            closeChannel();
+            throw new TException("Could not write " + spans.size() + " spans to " + path, e);
+        }
+    }
+
+    @Override
+    public int close() throws SenderException {
+        try {
+            return super.close();
+        } finally {
+            closeChannel();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // the channel is discarded either way
+            }
+            channel = null;
+        }
+    }
+
+    static SocketAddress address(String path) throws IOException {
+        try {
+            return (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress")
+                    .getMethod("of", String.class)
+                    .invoke(null, path);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            throw new IOException("Unix domain sockets are not supported", e);
+        } catch (InvocationTargetException e) {
+            throw new IOException("Invalid socket path " + path, e.getCause());
+        }
+    }
+
+    static ProtocolFamily unixProtocolFamily() {
+        return StandardProtocolFamily.valueOf("UNIX");
+    }
+
+    private static SocketChannel open(String path) throws IOException {
+        SocketChannel channel;
+        try {
+            channel = (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class)
+                    .invoke(null, unixProtocolFamily());
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IOException("Unix domain sockets are not supported", e);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof IOException
+                    ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        try {
+            channel.connect(address(path));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    @Override
+    public String toString() {
+        return "UnixSocketSender(path=" + path + ")";
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.baggage;
+
+import com.uber.jaeger.SpanContext;
+import com.uber.jaeger.propagation.TextMapCodec;
+import io.opentracing.propagation.TextMapExtractAdapter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BaggageLimitsTest {
+
+    private final BaggageLimits limits = new BaggageLimits(Collections.emptyList(), 3, 4);
+
+    @Test
+    public void testContextWithinLimitsIsNotCopied() {
+        SpanContext context = new SpanContext(1, 2, 0, (byte) 1)
+                .withBaggageItem("a", "1")
+                .withBaggageItem("b", "2");
+
+        assertThat(limits.limit(context)).isSameAs(context);
+    }
+
+    @Test
+    public void testBaggageIsTrimmed() {
+        SpanContext context = new SpanContext(1, 2, 0, (byte) 1);
+        for (String key : Arrays.asList("a", "b", "c", "d", "e")) {
+            context = context.withBaggageItem(key, "value-" + key);
+        }
+
+        SpanContext limited = limits.limit(context);
+        assertThat(limited.getTraceId()).isEqualTo(1);
+        assertThat(limited.baggageItems()).hasSize(3);
+        for (Map.Entry<String, String> item : limited.baggageItems()) {
+            assertThat(item.getValue()).isEqualTo("valu");
+        }
+    }
+
+    @Test
+    public void testExtractedBaggageIsLimited() {
+        BaggageLimits whitelisted = new BaggageLimits(Arrays.asList("tenant"), 3, 100);
+        BaggageLimitingCodec codec = new BaggageLimitingCodec(new TextMapCodec(false), whitelisted);
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("uber-trace-id", "1:2:0:1");
+        headers.put("uberctx-tenant", "acme");
+        headers.put("uberctx-other", "dropped");
+
+        SpanContext context = codec.extract(new TextMapExtractAdapter(headers));
+        assertThat(context.getBaggageItem("tenant")).isEqualTo("acme");
+        assertThat(context.getBaggageItem("other")).isNull();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.clocks;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnchoredClockTest {
+
+    @Test
+    public void testTimeFollowsTheWallClock() throws Exception {
+        // anchored on every reading, so that the time can be compared with the wall clock
+        AnchoredClock clock = new AnchoredClock(0);
+
+        long before = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        Thread.sleep(20);
+        long micros = clock.currentTimeMicros();
+        long after = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() + 1);
+
+        assertThat(micros).isBetween(before, after);
+        assertThat(clock.isMicrosAccurate()).isTrue();
+    }
+
+    @Test
+    public void testTimeIsMonotonicBetweenAnchors() {
+        AnchoredClock clock = new AnchoredClock(60000);
+
+        long previous = clock.currentTimeMicros();
+        for (int i = 0; i < 100000; i++) {
+            long micros = clock.currentTimeMicros();
+            assertThat(micros).isGreaterThanOrEqualTo(previous);
+            previous = micros;
+        }
+    }
+
+    @Test
+    public void testClockAnchorsAgain() throws Exception {
+        AnchoredClock clock = new AnchoredClock(1);
+
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(2);
+            long before = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+            long micros = clock.currentTimeMicros();
+            long after = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() + 1);
+            assertThat(micros).isBetween(before, after);
+        }
+    }
+
+    @Test
+    public void testTimeHoldsWhenTheWallClockGoesBack() throws Exception {
+        AtomicLong offsetMillis = new AtomicLong();
+        AnchoredClock clock = new AnchoredClock(0) {
+            @Override
+            long wallClockMillis() {
+                return System.currentTimeMillis() - offsetMillis.get();
+            }
+        };
+
+        long before = clock.currentTimeMicros();
+        offsetMillis.set(60000);
+        Thread.sleep(20);
+        long held = clock.currentTimeMicros();
+        Thread.sleep(20);
+
+        assertThat(held).isGreaterThanOrEqualTo(before);
+        assertThat(clock.currentTimeMicros()).isEqualTo(held);
+    }
+}
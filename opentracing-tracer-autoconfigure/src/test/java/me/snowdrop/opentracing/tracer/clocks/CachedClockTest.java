@@ -0,0 +1,57 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.clocks;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachedClockTest {
+
+    @Test
+    public void testTimeIsRefreshedAtTheResolution() throws Exception {
+        AtomicLong source = new AtomicLong(1000);
+        CachedClock clock = new CachedClock(new AnchoredClock(60000) {
+            @Override
+            public long currentTimeMicros() {
+                return source.get();
+            }
+        }, 1000);
+        try {
+            assertThat(clock.currentTimeMicros()).isEqualTo(1000);
+
+            source.set(5000);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (clock.currentTimeMicros() != 5000 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(clock.currentTimeMicros()).isEqualTo(5000);
+        } finally {
+            clock.close();
+        }
+    }
+
+    @Test
+    public void testTimeStopsWhenClosed() throws Exception {
+        CachedClock clock = new CachedClock(new AnchoredClock(60000), 100);
+        clock.close();
+        Thread.sleep(10);
+
+        long micros = clock.currentTimeMicros();
+        Thread.sleep(10);
+        assertThat(clock.currentTimeMicros()).isEqualTo(micros);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import me.snowdrop.opentracing.tracer.JaegerAutoConfiguration;
+import me.snowdrop.opentracing.tracer.TracingExecutorAutoConfiguration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {
+        TracingTaskExecutorSpringTest.ExecutorConfiguration.class,
+        JaegerAutoConfiguration.class,
+        TracingExecutorAutoConfiguration.class
+})
+@TestPropertySource(
+        properties = {
+                "spring.main.banner-mode=off"
+        }
+)
+public class TracingTaskExecutorSpringTest {
+
+    @Autowired
+    private Tracer tracer;
+
+    @Autowired
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    @Autowired
+    private TracingTaskDecorator tracingTaskDecorator;
+
+    @Test
+    public void testActiveSpanIsPropagatedToTaskExecutor() throws Exception {
+        Span span = tracer.buildSpan("parent").start();
+        try (Scope ignored = tracer.scopeManager().activate(span, true)) {
+            assertThat(taskExecutor.submit(() -> tracer.activeSpan()).get()).isSameAs(span);
+        }
+    }
+
+    @Test
+    public void testNoSpanIsActiveWhenSubmittedWithoutSpan() throws Exception {
+        assertThat(taskExecutor.submit(() -> tracer.activeSpan()).get()).isNull();
+    }
+
+    @Test
+    public void testActiveSpanIsPropagatedToCompletableFuture() throws Exception {
+        TracingExecutor executor = new TracingExecutor(ForkJoinPool.commonPool(), tracingTaskDecorator);
+
+        Span span = tracer.buildSpan("parent").start();
+        try (Scope ignored = tracer.scopeManager().activate(span, true)) {
+            assertThat(CompletableFuture.supplyAsync(() -> tracer.activeSpan(), executor).get()).isSameAs(span);
+        }
+    }
+
+    @Configuration
+    public static class ExecutorConfiguration {
+
+        @Bean
+        public ThreadPoolTaskExecutor taskExecutor() {
+            return new ThreadPoolTaskExecutor();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.customizer;
+
+import io.opentracing.Span;
+import io.opentracing.propagation.Format;
+import io.opentracing.propagation.TextMapInjectAdapter;
+import me.snowdrop.opentracing.tracer.AbstractTracerSpringTest;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(
+        properties = {
+                "spring.main.banner-mode=off",
+                "opentracing.jaeger.baggage.enabled=true",
+                "opentracing.jaeger.baggage.whitelist=tenant,user,region,zone",
+                "opentracing.jaeger.baggage.max-keys=2",
+                "opentracing.jaeger.baggage.max-value-length=5"
+        }
+)
+public class JaegerTracerBaggageLimitsSpringTest extends AbstractTracerSpringTest {
+
+    @Test
+    public void testBaggageIsLimitedWhenSetAndPropagated() {
+        Span span = tracer.buildSpan("test").start();
+        span.setBaggageItem("secret", "value");
+        span.setBaggageItem("tenant", "acme-corporation");
+        span.setBaggageItem("user", "bob");
+        span.setBaggageItem("region", "eu");
+
+        assertThat(span.getBaggageItem("secret")).isNull();
+        assertThat(span.getBaggageItem("tenant")).isEqualTo("acme-");
+
+        Map<String, String> headers = new HashMap<>();
+        tracer.inject(span.context(), Format.Builtin.HTTP_HEADERS, new TextMapInjectAdapter(headers));
+        span.finish();
+
+        assertThat(headers.keySet().stream().filter(key -> key.startsWith("uberctx-")).count()).isEqualTo(2);
+        assertThat(headers).doesNotContainKey("uberctx-secret");
+    }
+}
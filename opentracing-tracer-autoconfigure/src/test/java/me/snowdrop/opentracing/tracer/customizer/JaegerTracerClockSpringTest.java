@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.customizer;
+
+import com.uber.jaeger.Span;
+import me.snowdrop.opentracing.tracer.AbstractTracerSpringTest;
+import me.snowdrop.opentracing.tracer.JaegerTracerCustomizer;
+import me.snowdrop.opentracing.tracer.customizers.ClockJaegerTracerCustomizer;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(
+        properties = {
+                "spring.main.banner-mode=off",
+                "opentracing.jaeger.clock.type=anchored",
+                // anchored on every reading, so that the timestamps can be compared with the wall clock
+                "opentracing.jaeger.clock.reanchor-interval=0"
+        }
+)
+public class JaegerTracerClockSpringTest extends AbstractTracerSpringTest {
+
+    @Autowired
+    private List<JaegerTracerCustomizer> customizers;
+
+    @Test
+    public void testSpansAreTimedWithTheConfiguredClock() throws Exception {
+        assertThat(customizers).hasAtLeastOneElementOfType(ClockJaegerTracerCustomizer.class);
+
+        long before = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        Span span = (Span) tracer.buildSpan("timed").start();
+        Thread.sleep(5);
+        span.finish();
+        long after = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() + 1);
+
+        assertThat(span.getStart()).isBetween(before, after);
+        assertThat(span.getDuration()).isBetween(5000L, after - before);
+    }
+}
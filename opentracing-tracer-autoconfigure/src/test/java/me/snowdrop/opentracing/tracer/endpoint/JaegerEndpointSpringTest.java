@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.endpoint;
+
+import com.uber.jaeger.samplers.ProbabilisticSampler;
+import com.uber.jaeger.samplers.Sampler;
+import me.snowdrop.opentracing.tracer.JaegerAutoConfiguration;
+import me.snowdrop.opentracing.tracer.JaegerEndpointAutoConfiguration;
+import me.snowdrop.opentracing.tracer.JaegerServiceTracers;
+import me.snowdrop.opentracing.tracer.endpoints.JaegerEndpoint;
+import me.snowdrop.opentracing.tracer.samplers.ReloadableSampler;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {
+        JaegerAutoConfiguration.class,
+        JaegerEndpointAutoConfiguration.class
+})
+@TestPropertySource(
+        properties = {
+                "spring.main.banner-mode=off",
+                "opentracing.jaeger.udp-sender.host=localhost",
+                "opentracing.jaeger.udp-sender.port=6831",
+                "opentracing.jaeger.services.billing.sampling-rate=0",
+                "endpoints.jaeger.enabled=true"
+        }
+)
+public class JaegerEndpointSpringTest {
+
+    @Autowired
+    private io.opentracing.Tracer tracer;
+
+    @Autowired
+    private Sampler sampler;
+
+    @Autowired
+    private JaegerServiceTracers serviceTracers;
+
+    @Autowired
+    private JaegerEndpoint endpoint;
+
+    @Test
+    public void testStatisticsAreExposed() {
+        tracer.buildSpan("test").start().finish();
+        assertThat(endpoint.flush()).isEqualTo(1);
+
+        Map<String, Object> result = endpoint.invoke();
+        assertThat(result).containsKeys("sampler", "reporter", "senders", "metrics");
+        assertThat((List<?>) result.get("senders")).hasSize(1);
+        assertThat(result).containsEntry("samplerReloadable", true);
+        assertThat(((Map<?, ?>) result.get("metrics")).get("jaeger.spans.group=lifecycle.state=finished"))
+                .isEqualTo(1L);
+    }
+
+    @Test
+    public void testSamplingRateCanBeForced() {
+        assertThat(endpoint.forceSamplingRate(0.25, 60000)).isTrue();
+        assertThat(((ReloadableSampler) sampler).getOverride()).isInstanceOf(ProbabilisticSampler.class);
+        ReloadableSampler serviceSampler = (ReloadableSampler) serviceTracers.getSamplers().get("billing");
+        assertThat(serviceSampler.getOverride()).isInstanceOf(ProbabilisticSampler.class);
+
+        assertThat(endpoint.clearSamplingRate()).isTrue();
+        assertThat(((ReloadableSampler) sampler).getOverride()).isNull();
+        assertThat(serviceSampler.getOverride()).isNull();
+    }
+}
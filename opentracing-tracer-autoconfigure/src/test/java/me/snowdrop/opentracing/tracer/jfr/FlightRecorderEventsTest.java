@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.jfr;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.metrics.InMemoryStatsReporter;
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.metrics.StatsFactoryImpl;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import com.uber.jaeger.senders.Sender;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Records the events into an in-process recording and reads them back, skipped when the JVM has no Flight Recorder
+ */
+public class FlightRecorderEventsTest {
+
+    private final Tracer tracer = new Tracer.Builder("jfr-test", new InMemoryReporter(), new ConstSampler(true)).build();
+    private Recording recording;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(FlightRecorderSupport.isAvailable());
+        recording = new Recording();
+        recording.enable(SpanEvent.class);
+        recording.enable(ReporterFlushEvent.class);
+        recording.enable(SpanDropEvent.class);
+        recording.enable(SamplerUpdateEvent.class);
+        recording.start();
+        file = File.createTempFile("tracer", ".jfr");
+    }
+
+    @After
+    public void tearDown() {
+        if (recording != null) {
+            recording.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSpansBelowTheMinimumDurationAreNotRecorded() throws Exception {
+        FlightRecorderReporter reporter = new FlightRecorderReporter(1000);
+
+        Span quick = (Span) tracer.buildSpan("quick").withStartTimestamp(0).start();
+        quick.finish(10);
+        Span slow = (Span) tracer.buildSpan("slow").withStartTimestamp(1000000).start();
+        slow.finish(1005000);
+        reporter.report(quick);
+        reporter.report(slow);
+
+        List<RecordedEvent> events = stop(SpanEvent.NAME);
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getString("operation")).isEqualTo("slow");
+        assertThat(events.get(0).getString("service")).isEqualTo("jfr-test");
+        assertThat(events.get(0).getString("traceId")).isEqualTo(Long.toHexString(slow.context().getTraceId()));
+        assertThat(events.get(0).getLong("spanDuration")).isEqualTo(5000);
+    }
+
+    @Test
+    public void testFlushesAndFailuresAreRecorded() throws Exception {
+        FlightRecorderSender sender = new FlightRecorderSender(new Sender() {
+            private int flushes;
+
+            @Override
+            public int append(Span span) {
+                return 0;
+            }
+
+            @Override
+            public int flush() throws SenderException {
+                if (++flushes == 2) {
+                    throw new SenderException("unreachable", null, 3);
+                }
+                return 2;
+            }
+
+            @Override
+            public int close() {
+                return 0;
+            }
+        });
+
+        assertThat(sender.flush()).isEqualTo(2);
+        try {
+            sender.flush();
+            fail("the second flush fails");
+        } catch (SenderException e) {
+            assertThat(e.getDroppedSpanCount()).isEqualTo(3);
+        }
+
+        List<RecordedEvent> events = stop(ReporterFlushEvent.NAME);
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).getInt("sentSpans")).isEqualTo(2);
+        assertThat(events.get(1).getInt("failedSpans")).isEqualTo(3);
+        assertThat(events.get(1).getString("error")).isEqualTo("unreachable");
+    }
+
+    @Test
+    public void testDropsAndSamplerUpdatesAreRecorded() throws Exception {
+        InMemoryStatsReporter statsReporter = new InMemoryStatsReporter();
+        Metrics metrics = new Metrics(new FlightRecorderStatsFactory(new StatsFactoryImpl(statsReporter)));
+
+        metrics.reporterDropped.inc(4);
+        metrics.reporterSuccess.inc(10);
+        metrics.samplerUpdated.inc(1);
+        metrics.samplerRetrieved.inc(1);
+
+        recording.stop();
+        recording.dump(file.toPath());
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+        List<RecordedEvent> drops = events.stream()
+                .filter(event -> event.getEventType().getName().equals(SpanDropEvent.NAME))
+                .collect(Collectors.toList());
+        List<RecordedEvent> updates = events.stream()
+                .filter(event -> event.getEventType().getName().equals(SamplerUpdateEvent.NAME))
+                .collect(Collectors.toList());
+
+        assertThat(drops).hasSize(1);
+        assertThat(drops.get(0).getString("reason")).isEqualTo("dropped");
+        assertThat(drops.get(0).getLong("spans")).isEqualTo(4);
+        assertThat(updates).hasSize(1);
+        assertThat(updates.get(0).getString("outcome")).isEqualTo("updated");
+        assertThat(statsReporter.counters.get("jaeger.spans.state=dropped")).isEqualTo(4);
+    }
+
+    private List<RecordedEvent> stop(String name) throws IOException {
+        recording.stop();
+        recording.dump(file.toPath());
+        return RecordingFile.readAllEvents(file.toPath()).stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reload;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.reporters.CompositeReporter;
+import com.uber.jaeger.reporters.Reporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import com.uber.jaeger.samplers.ProbabilisticSampler;
+import com.uber.jaeger.samplers.Sampler;
+import me.snowdrop.opentracing.tracer.AbstractTracerSpringTest;
+import me.snowdrop.opentracing.tracer.JaegerConfigurationReloader;
+import me.snowdrop.opentracing.tracer.JaegerServiceTracers;
+import me.snowdrop.opentracing.tracer.ReporterAppender;
+import me.snowdrop.opentracing.tracer.reporters.CompactingReporter;
+import me.snowdrop.opentracing.tracer.reporters.ReloadableReporter;
+import me.snowdrop.opentracing.tracer.samplers.ReloadableSampler;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(
+        properties = {
+                "spring.main.banner-mode=off",
+                "opentracing.jaeger.reload.enabled=true",
+                "opentracing.jaeger.const-sampler.decision=true",
+                "opentracing.jaeger.services.billing.service-name=shop-billing"
+        }
+)
+@Import(JaegerTracerReloadSpringTest.AppendedReporterConfiguration.class)
+public class JaegerTracerReloadSpringTest extends AbstractTracerSpringTest {
+
+    @TestConfiguration
+    static class AppendedReporterConfiguration {
+
+        @Bean
+        public ReporterAppender reporterAppender() {
+            return reporters -> reporters.add(COUNTING_REPORTER);
+        }
+    }
+
+    private static final String PROPERTY_SOURCE_NAME = "reloaded";
+
+    // not a bean, which would be autowired as the Reporter of the tracer
+    private static final CountingReporter COUNTING_REPORTER = new CountingReporter();
+
+    @Autowired
+    private Sampler sampler;
+
+    @Autowired
+    private Reporter reporter;
+
+    @Autowired
+    private JaegerServiceTracers serviceTracers;
+
+    @Autowired
+    private JaegerConfigurationReloader reloader;
+
+    @Autowired
+    private ConfigurableEnvironment environment;
+
+    @After
+    public void tearDown() {
+        environment.getPropertySources().remove(PROPERTY_SOURCE_NAME);
+    }
+
+    @Test
+    public void testSamplerAndReporterAreReloaded() {
+        assertThat(sampler).isInstanceOf(ReloadableSampler.class);
+        assertThat(((ReloadableSampler) sampler).getDelegate()).isInstanceOf(ConstSampler.class);
+        assertThat(reporter).isInstanceOf(ReloadableReporter.class);
+        assertThat(((ReloadableReporter) reporter).getDelegate()).isInstanceOf(CompositeReporter.class);
+        Sampler serviceSampler = serviceTracers.getSamplers().get("billing");
+        assertThat(serviceSampler).isInstanceOf(ReloadableSampler.class);
+        assertThat(((ReloadableSampler) serviceSampler).getDelegate()).isInstanceOf(ConstSampler.class);
+
+        Map<String, Object> changed = new HashMap<>();
+        changed.put("opentracing.jaeger.const-sampler.decision", "");
+        changed.put("opentracing.jaeger.probabilistic-sampler.sampling-rate", "0.5");
+        changed.put("opentracing.jaeger.compaction.enabled", "true");
+        environment.getPropertySources().addFirst(new MapPropertySource(PROPERTY_SOURCE_NAME, changed));
+
+        reloader.reload();
+
+        assertThat(((ReloadableSampler) sampler).getDelegate()).isInstanceOf(ProbabilisticSampler.class);
+        assertThat(((ProbabilisticSampler) ((ReloadableSampler) sampler).getDelegate()).getSamplingRate())
+                .isEqualTo(0.5);
+        assertThat(((ReloadableSampler) serviceSampler).getDelegate()).isInstanceOf(ProbabilisticSampler.class);
+        assertThat(((ReloadableReporter) reporter).getDelegate()).isInstanceOf(CompactingReporter.class);
+    }
+
+    @Test
+    public void testAppendedReportersOutliveTheReload() {
+        reloader.reload();
+        assertThat(COUNTING_REPORTER.closed.get()).isZero();
+
+        int reported = COUNTING_REPORTER.reported.get();
+        tracer.buildSpan("after-reload").start().finish();
+        assertThat(COUNTING_REPORTER.reported.get()).isEqualTo(reported + 1);
+    }
+
+    static class CountingReporter implements Reporter {
+
+        private final AtomicInteger reported = new AtomicInteger();
+        private final AtomicInteger closed = new AtomicInteger();
+
+        @Override
+        public void report(Span span) {
+            reported.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporter;
+
+import com.uber.jaeger.reporters.Reporter;
+import me.snowdrop.opentracing.tracer.AbstractTracerSpringTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(
+        properties = {
+                "spring.main.banner-mode=off",
+                "opentracing.jaeger.udp-sender.host=localhost",
+                "opentracing.jaeger.udp-sender.port=6831",
+                "opentracing.jaeger.remote-reporter-properties.max-queue-bytes=1048576"
+        }
+)
+public class JaegerTracerQueueBytesSpringTest extends AbstractTracerSpringTest {
+
+    @Autowired
+    private Reporter reporter;
+
+    @Test
+    public void testRemoteReporterIsBoundedByBytes() {
+        assertThat(reporter.toString()).contains("LaneReporter", "maxQueueBytes=1048576");
+    }
+}
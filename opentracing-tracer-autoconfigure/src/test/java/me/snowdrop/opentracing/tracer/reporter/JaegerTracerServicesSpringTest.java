@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporter;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import me.snowdrop.opentracing.tracer.AbstractTracerSpringTest;
+import me.snowdrop.opentracing.tracer.JaegerServiceTracers;
+import me.snowdrop.opentracing.tracer.ReporterAppender;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(
+        properties = {
+                "spring.main.banner-mode=off",
+                "opentracing.jaeger.service-name=shop",
+                "opentracing.jaeger.services.billing.service-name=shop-billing",
+                "opentracing.jaeger.services.inventory.sampling-rate=0"
+        }
+)
+@Import(JaegerTracerServicesSpringTest.InMemoryReporterConfiguration.class)
+public class JaegerTracerServicesSpringTest extends AbstractTracerSpringTest {
+
+    @TestConfiguration
+    static class InMemoryReporterConfiguration {
+
+        @Bean
+        public InMemoryReporter inMemoryReporter() {
+            return new InMemoryReporter();
+        }
+
+        @Bean
+        public ReporterAppender reporterAppender(InMemoryReporter inMemoryReporter) {
+            return reporters -> reporters.add(inMemoryReporter);
+        }
+    }
+
+    @Autowired
+    private JaegerServiceTracers serviceTracers;
+
+    @Autowired
+    private InMemoryReporter inMemoryReporter;
+
+    @Before
+    public void setUp() {
+        inMemoryReporter.clear();
+    }
+
+    @Test
+    public void testServicesShareTheReporter() {
+        assertThat(serviceTracers.getTracers()).containsOnlyKeys("billing", "inventory");
+
+        tracer.buildSpan("checkout").start().finish();
+        serviceTracers.get("billing").buildSpan("charge").start().finish();
+        serviceTracers.get("inventory").buildSpan("reserve").start().finish();
+
+        List<Span> spans = inMemoryReporter.getSpans();
+        assertThat(spans).hasSize(2);
+        assertThat(spans.get(0).getTracer().getServiceName()).isEqualTo("shop");
+        assertThat(spans.get(1).getTracer().getServiceName()).isEqualTo("shop-billing");
+        assertThat(spans.get(1).getOperationName()).isEqualTo("charge");
+    }
+}
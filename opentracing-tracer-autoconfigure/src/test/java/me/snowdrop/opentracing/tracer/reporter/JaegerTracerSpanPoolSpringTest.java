@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporter;
+
+import com.uber.jaeger.reporters.Reporter;
+import com.uber.jaeger.senders.Sender;
+import me.snowdrop.opentracing.tracer.AbstractTracerSpringTest;
+import me.snowdrop.opentracing.tracer.reporters.InspectableCompositeReporter;
+import me.snowdrop.opentracing.tracer.reporters.SendingReporter;
+import me.snowdrop.opentracing.tracer.senders.CircuitBreakerSender;
+import me.snowdrop.opentracing.tracer.senders.InstrumentedSender;
+import me.snowdrop.opentracing.tracer.senders.PooledThriftSender;
+import me.snowdrop.opentracing.tracer.senders.ThriftSpanPool;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(
+        properties = {
+                "spring.main.banner-mode=off",
+                "opentracing.jaeger.udp-sender.host=localhost",
+                "opentracing.jaeger.remote-reporter-properties.flush-interval=100",
+                "opentracing.jaeger.span-pool.enabled=true"
+        }
+)
+public class JaegerTracerSpanPoolSpringTest extends AbstractTracerSpringTest {
+
+    private static final DatagramSocket AGENT = bindAgent();
+
+    @Autowired
+    private Reporter reporter;
+
+    /**
+     * The agent port is only known once the socket is bound, it is handed to the context as a system property
+     */
+    private static DatagramSocket bindAgent() {
+        try {
+            DatagramSocket socket = new DatagramSocket(0, InetAddress.getByName("localhost"));
+            socket.setSoTimeout(5000);
+            System.setProperty("opentracing.jaeger.udp-sender.port", String.valueOf(socket.getLocalPort()));
+            return socket;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AfterClass
+    public static void closeAgent() {
+        System.clearProperty("opentracing.jaeger.udp-sender.port");
+        AGENT.close();
+    }
+
+    @Test
+    public void testSpansAreSentThroughThePool() throws Exception {
+        ThriftSpanPool pool = getPool();
+
+        tracer.buildSpan("first").start().finish();
+        receiveBatch();
+        awaitReleased(pool);
+        assertThat(pool.getPooled()).isEqualTo(1);
+
+        // the span released by the first batch is reused for the second one
+        tracer.buildSpan("second").start().finish();
+        receiveBatch();
+        awaitReleased(pool);
+        assertThat(pool.getPooled()).isEqualTo(1);
+    }
+
+    private static void receiveBatch() throws IOException {
+        DatagramPacket packet = new DatagramPacket(new byte[65000], 65000);
+        AGENT.receive(packet);
+        assertThat(packet.getLength()).isGreaterThan(0);
+    }
+
+    /**
+     * The batch is handed back to the pool right after it was written to the socket
+     */
+    private static void awaitReleased(ThriftSpanPool pool) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((pool.getOutstanding() != 0 || pool.getPooled() == 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(pool.getOutstanding()).isEqualTo(0);
+    }
+
+    private ThriftSpanPool getPool() {
+        assertThat(reporter).isInstanceOf(InspectableCompositeReporter.class);
+        Reporter remoteReporter = ((InspectableCompositeReporter) reporter).getReporters().get(0);
+        assertThat(remoteReporter).isInstanceOf(SendingReporter.class);
+
+        Sender sender = ((SendingReporter) remoteReporter).getSender();
+        if (sender instanceof CircuitBreakerSender) {
+            sender = ((CircuitBreakerSender) sender).getDelegate();
+        }
+        assertThat(sender).isInstanceOf(InstrumentedSender.class);
+        sender = ((InstrumentedSender) sender).getDelegate();
+        assertThat(sender).isInstanceOf(PooledThriftSender.class);
+        return ((PooledThriftSender) sender).getPool();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.metrics.NullStatsReporter;
+import com.uber.jaeger.metrics.StatsFactoryImpl;
+import com.uber.jaeger.samplers.ConstSampler;
+import io.opentracing.Span;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncLoggingReporterTest {
+
+    @Test
+    public void testSpansAreLoggedAsJson() {
+        Logger spanLog = mock(Logger.class);
+        when(spanLog.isInfoEnabled()).thenReturn(true);
+        AsyncLoggingReporter reporter = new AsyncLoggingReporter(spanLog, 100, metrics());
+        Tracer tracer = new Tracer.Builder("logging-test", reporter, new ConstSampler(true)).build();
+
+        Span parent = tracer.buildSpan("parent").withStartTimestamp(1000).start();
+        Span child = tracer.buildSpan("child")
+                .asChildOf(parent)
+                .withTag("count", 3)
+                .withTag("text", "line\n\"quoted\"")
+                .withStartTimestamp(1100)
+                .start();
+        child.log(1150, Collections.singletonMap("event", "retry"));
+        child.finish(1200);
+        parent.finish(2000);
+        tracer.close();
+
+        ArgumentCaptor<String> lines = ArgumentCaptor.forClass(String.class);
+        verify(spanLog, atLeastOnce()).info(lines.capture());
+        List<String> logged = lines.getAllValues();
+        assertThat(logged).hasSize(2);
+
+        com.uber.jaeger.SpanContext context = ((com.uber.jaeger.Span) child).context();
+        assertThat(logged.get(0)).isEqualTo("{\"traceId\":\"" + Long.toHexString(context.getTraceId())
+                + "\",\"spanId\":\"" + Long.toHexString(context.getSpanId())
+                + "\",\"parentId\":\"" + Long.toHexString(context.getParentId())
+                + "\",\"flags\":1,\"serviceName\":\"logging-test\",\"operationName\":\"child\""
+                + ",\"start\":1100,\"duration\":100"
+                + ",\"tags\":{\"count\":3,\"text\":\"line\\u000a\\\"quoted\\\"\"}"
+                + ",\"references\":[{\"type\":\"child_of\",\"spanId\":\"" + Long.toHexString(context.getParentId()) + "\"}]"
+                + ",\"logs\":[{\"time\":1150,\"fields\":{\"event\":\"retry\"}}]}");
+        assertThat(logged.get(1)).contains("\"operationName\":\"parent\"");
+    }
+
+    @Test
+    public void testNothingIsQueuedWhenInfoIsDisabled() {
+        Logger spanLog = mock(Logger.class);
+        AsyncLoggingReporter reporter = new AsyncLoggingReporter(spanLog, 100, metrics());
+        Tracer tracer = new Tracer.Builder("logging-test", reporter, new ConstSampler(true)).build();
+
+        tracer.buildSpan("span").start().finish();
+        tracer.close();
+
+        verify(spanLog, never()).info(anyString());
+    }
+
+    private static Metrics metrics() {
+        return new Metrics(new StatsFactoryImpl(new NullStatsReporter()));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.SpanContext;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import me.snowdrop.opentracing.tracer.samplers.KeyedRateLimiter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BudgetReporterTest {
+
+    private final Tracer tracer = new Tracer.Builder("budget-test", new InMemoryReporter(), new ConstSampler(true)).build();
+    private final InMemoryReporter delegate = new InMemoryReporter();
+
+    @Test
+    public void testTracesAreChargedOnceAndKeptWhole() {
+        BudgetReporter reporter = new BudgetReporter(delegate, "tenant",
+                new KeyedRateLimiter(0.001, 2.0, 10, 60000), 100);
+
+        for (int i = 0; i < 3; i++) {
+            for (Span span : trace("acme")) {
+                reporter.report(span);
+            }
+        }
+
+        // two traces fit in the budget of the tenant, each is kept with its three spans
+        assertThat(delegate.getSpans()).hasSize(6);
+        assertThat(delegate.getSpans().get(0).context().getTraceId())
+                .isEqualTo(delegate.getSpans().get(2).context().getTraceId());
+    }
+
+    @Test
+    public void testUntaggedSpansFollowTheDecisionOfTheirTrace() {
+        BudgetReporter reporter = new BudgetReporter(delegate, "tenant",
+                new KeyedRateLimiter(0.001, 1.0, 10, 60000), 100);
+
+        Span accepted = (Span) tracer.buildSpan("accepted").withTag("tenant", "acme").start();
+        accepted.finish();
+        reporter.report(accepted);
+
+        Span refused = (Span) tracer.buildSpan("refused").withTag("tenant", "acme").start();
+        refused.finish();
+        reporter.report(refused);
+
+        // a child without the tag nor the baggage of its parent
+        SpanContext parent = refused.context();
+        Span untagged = (Span) tracer.buildSpan("untagged")
+                .asChildOf(new SpanContext(parent.getTraceId(), parent.getSpanId(), 0, parent.getFlags()))
+                .start();
+        untagged.finish();
+        reporter.report(untagged);
+
+        assertThat(delegate.getSpans()).extracting("operationName").containsExactly("accepted");
+    }
+
+    /**
+     * @return the spans of a trace in the order they finish, children first
+     */
+    private List<Span> trace(String tenant) {
+        Span root = (Span) tracer.buildSpan("root").start();
+        root.setBaggageItem("tenant", tenant);
+        Span child = (Span) tracer.buildSpan("child").asChildOf(root).start();
+        Span grandChild = (Span) tracer.buildSpan("grand-child").asChildOf(child).start();
+
+        List<Span> spans = new ArrayList<>();
+        for (Span span : new Span[]{grandChild, child, root}) {
+            span.finish();
+            spans.add(span);
+        }
+        return spans;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactingReporterTest {
+
+    private InMemoryReporter inMemoryReporter;
+    private CompactingReporter reporter;
+    private Tracer tracer;
+
+    @Before
+    public void setUp() {
+        inMemoryReporter = new InMemoryReporter();
+        reporter = new CompactingReporter(inMemoryReporter, 2, 100, 60000);
+        tracer = new Tracer.Builder("test", reporter, new ConstSampler(true)).build();
+    }
+
+    @After
+    public void tearDown() {
+        tracer.close();
+    }
+
+    @Test
+    public void testSiblingsAreCollapsed() {
+        io.opentracing.Span parent = tracer.buildSpan("parent").start();
+        for (int i = 0; i < 5; i++) {
+            tracer.buildSpan("child").asChildOf(parent).withStartTimestamp(100 + i).start().finish(110 + i * 2);
+        }
+        tracer.buildSpan("other").asChildOf(parent).start().finish();
+
+        assertThat(inMemoryReporter.getSpans()).hasSize(3);
+
+        parent.finish();
+
+        List<Span> spans = inMemoryReporter.getSpans();
+        assertThat(spans).hasSize(5);
+        assertThat(spans.stream().map(Span::getOperationName).collect(Collectors.toList()))
+                .containsExactly("child", "child", "other", "child", "parent");
+
+        Span aggregate = spans.get(3);
+        assertThat(aggregate.context().getParentId()).isEqualTo(((Span) parent).context().getSpanId());
+        assertThat(aggregate.getStart()).isEqualTo(102);
+        assertThat(aggregate.getDuration()).isEqualTo(118 - 102);
+        assertThat(aggregate.getTags())
+                .containsEntry(CompactingReporter.COUNT_TAG, 3)
+                .containsEntry(CompactingReporter.TOTAL_DURATION_TAG, 12L + 13L + 14L)
+                .containsEntry(CompactingReporter.MIN_DURATION_TAG, 12L)
+                .containsEntry(CompactingReporter.MAX_DURATION_TAG, 14L);
+    }
+
+    @Test
+    public void testRemoteParentIsFlushedOnClose() {
+        io.opentracing.Span parent = tracer.buildSpan("parent").start();
+        for (int i = 0; i < 3; i++) {
+            tracer.buildSpan("child").asChildOf(parent).start().finish();
+        }
+        assertThat(inMemoryReporter.getSpans()).hasSize(2);
+
+        reporter.flushExpired(Long.MAX_VALUE);
+
+        assertThat(inMemoryReporter.getSpans()).hasSize(3);
+        assertThat(inMemoryReporter.getSpans().get(2).getTags()).containsEntry(CompactingReporter.COUNT_TAG, 1);
+    }
+}
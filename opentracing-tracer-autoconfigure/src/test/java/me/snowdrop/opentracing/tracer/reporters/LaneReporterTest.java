@@ -0,0 +1,226 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.metrics.InMemoryStatsReporter;
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.metrics.StatsFactoryImpl;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import com.uber.jaeger.senders.Sender;
+import io.opentracing.tag.Tags;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LaneReporterTest {
+
+    private final Tracer tracer = new Tracer.Builder("lane-test", new InMemoryReporter(), new ConstSampler(true)).build();
+    private final InMemoryStatsReporter statsReporter = new InMemoryStatsReporter();
+    private final StatsFactoryImpl statsFactory = new StatsFactoryImpl(statsReporter);
+    private final BlockingSender sender = new BlockingSender();
+
+    @Test
+    public void testPrioritySpansAreSentFirstAndNormalSpansDroppedFirst() throws Exception {
+        LaneReporter reporter = new LaneReporter(sender, 60000, 2, 2, 1000, new Metrics(statsFactory), statsFactory);
+
+        reporter.report(span("blocker", 0, false));
+        assertThat(sender.appending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        reporter.report(span("normal-1", 0, false));
+        reporter.report(span("normal-2", 0, false));
+        reporter.report(span("normal-3", 0, false));
+        reporter.report(span("error", 0, true));
+        reporter.report(span("slow", 2000000, false));
+        reporter.report(span("error-dropped", 0, true));
+
+        sender.release.countDown();
+        reporter.close();
+
+        assertThat(sender.operations).containsExactly("blocker", "error", "slow", "normal-1", "normal-2");
+        assertThat(statsReporter.counters.get("jaeger.reporter-lane.lane=normal.state=dropped")).isEqualTo(1);
+        assertThat(statsReporter.counters.get("jaeger.reporter-lane.lane=priority.state=dropped")).isEqualTo(1);
+        assertThat(statsReporter.counters.get("jaeger.spans.state=dropped")).isEqualTo(2);
+        assertThat(sender.closed).isTrue();
+    }
+
+    @Test
+    public void testQueuedSpansAreFlushedOnRequest() throws Exception {
+        sender.release.countDown();
+        LaneReporter reporter = new LaneReporter(sender, 60000, 10, 10, 1000, new Metrics(statsFactory), statsFactory);
+
+        reporter.report(span("queued", 0, false));
+        reporter.flush();
+
+        assertThat(sender.flushed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sender.operations).containsExactly("queued");
+        reporter.close();
+    }
+
+    @Test
+    public void testNormalLaneIsBoundedByBytes() throws Exception {
+        Span small = span("small", 0, false);
+        Span error = span("error", 0, true);
+        Span large = span("large", 0, false);
+        large.setTag("payload", new String(new char[16384]));
+        long maxQueueBytes = 4 * SpanSizeEstimator.estimate(small) + SpanSizeEstimator.estimate(error);
+        assertThat((long) SpanSizeEstimator.estimate(large)).isGreaterThan(maxQueueBytes);
+
+        // without a priority lane, error spans share the byte budget of the other spans
+        LaneReporter reporter = new LaneReporter(sender, 60000, 0, 1, 1000, maxQueueBytes, 0,
+                new Metrics(statsFactory), statsFactory);
+
+        reporter.report(span("blocker", 0, false));
+        assertThat(sender.appending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        reporter.report(large);
+        for (int i = 0; i < 4; i++) {
+            reporter.report(small);
+        }
+        reporter.report(error);
+        reporter.report(small);
+
+        sender.release.countDown();
+        reporter.close();
+
+        assertThat(sender.operations).containsExactly("blocker", "small", "small", "small", "small", "error");
+        assertThat(statsReporter.counters.get("jaeger.reporter-lane.lane=normal.state=dropped")).isEqualTo(2);
+        assertThat(statsReporter.gauges.get("jaeger.reporter-queue-bytes")).isEqualTo(0);
+    }
+
+    @Test
+    public void testBothLanesShareTheByteBudget() throws Exception {
+        Span normal = span("normal", 0, false);
+        Span slow = span("urgent", 2000000, false);
+        long spanBytes = SpanSizeEstimator.estimate(normal);
+        assertThat((long) SpanSizeEstimator.estimate(slow)).isEqualTo(spanBytes);
+
+        // normal spans fill up to 2 spans of the budget, priority spans all of it
+        LaneReporter reporter = new LaneReporter(sender, 60000, 10, 1, 1000, 4 * spanBytes, 2 * spanBytes,
+                new Metrics(statsFactory), statsFactory);
+
+        reporter.report(span("blocker", 0, false));
+        assertThat(sender.appending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < 3; i++) {
+            reporter.report(normal);
+        }
+        for (int i = 0; i < 3; i++) {
+            reporter.report(slow);
+        }
+
+        sender.release.countDown();
+        reporter.close();
+
+        assertThat(sender.operations).containsExactly("blocker", "urgent", "urgent", "normal", "normal");
+        assertThat(statsReporter.counters.get("jaeger.reporter-lane.lane=normal.state=dropped")).isEqualTo(1);
+        assertThat(statsReporter.counters.get("jaeger.reporter-lane.lane=priority.state=dropped")).isEqualTo(1);
+        assertThat(statsReporter.gauges.get("jaeger.reporter-queue-bytes")).isEqualTo(0);
+    }
+
+    @Test
+    public void testSpansReportedWhileClosingAreSentOrCountedAsDropped() throws Exception {
+        sender.release.countDown();
+        // the reporting threads drop spans concurrently
+        InMemoryStatsReporter statsReporter = new InMemoryStatsReporter() {
+            @Override
+            public synchronized void incCounter(String name, long delta, Map<String, String> tags) {
+                super.incCounter(name, delta, tags);
+            }
+        };
+        StatsFactoryImpl statsFactory = new StatsFactoryImpl(statsReporter);
+        LaneReporter reporter = new LaneReporter(sender, 60000, 100, 100, 1000, new Metrics(statsFactory), statsFactory);
+
+        int threads = 4;
+        int spansPerThread = 10000;
+        CountDownLatch started = new CountDownLatch(threads);
+        List<Thread> reporting = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                Span span = span("span", 0, false);
+                started.countDown();
+                for (int j = 0; j < spansPerThread; j++) {
+                    reporter.report(span);
+                }
+            });
+            thread.start();
+            reporting.add(thread);
+        }
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        reporter.close();
+        for (Thread thread : reporting) {
+            thread.join();
+        }
+
+        long dropped;
+        synchronized (statsReporter) {
+            dropped = statsReporter.counters.getOrDefault("jaeger.spans.state=dropped", 0L);
+        }
+        assertThat(sender.operations.size() + dropped).isEqualTo(threads * spansPerThread);
+    }
+
+    private Span span(String operation, long durationMicros, boolean error) {
+        Span span = (Span) tracer.buildSpan(operation).withStartTimestamp(1000).start();
+        if (error) {
+            Tags.ERROR.set(span, true);
+        }
+        span.finish(1000 + durationMicros);
+        return span;
+    }
+
+    private static class BlockingSender implements Sender {
+
+        private final List<String> operations = new CopyOnWriteArrayList<>();
+        private final CountDownLatch appending = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch flushed = new CountDownLatch(1);
+        private volatile boolean closed;
+
+        @Override
+        public int append(Span span) {
+            appending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            operations.add(span.getOperationName());
+            return 0;
+        }
+
+        @Override
+        public int flush() {
+            if (!operations.isEmpty()) {
+                flushed.countDown();
+            }
+            return 0;
+        }
+
+        @Override
+        public int close() {
+            closed = true;
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReloadableReporterTest {
+
+    @Test
+    public void testNoSpanIsLostWhileSwapping() throws InterruptedException {
+        ClosableInMemoryReporter first = new ClosableInMemoryReporter();
+        ClosableInMemoryReporter second = new ClosableInMemoryReporter();
+        ReloadableReporter reporter = new ReloadableReporter(first);
+        Tracer tracer = new Tracer.Builder("test", reporter, new ConstSampler(true)).build();
+
+        int threads = 4;
+        int spansPerThread = 2000;
+        CountDownLatch started = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                for (int j = 0; j < spansPerThread; j++) {
+                    tracer.buildSpan("span").start().finish();
+                }
+            });
+        }
+
+        started.await();
+        reporter.swap(second);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(first.closed.get()).isTrue();
+        assertThat(first.reportedAfterClose.get()).isFalse();
+        assertThat(first.getSpans().size() + second.getSpans().size()).isEqualTo(threads * spansPerThread);
+        assertThat(reporter.getDelegate()).isSameAs(second);
+    }
+
+    private static class ClosableInMemoryReporter extends InMemoryReporter {
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean reportedAfterClose = new AtomicBoolean();
+
+        @Override
+        public void report(Span span) {
+            if (closed.get()) {
+                reportedAfterClose.set(true);
+            }
+            super.report(span);
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.senders.Sender;
+import me.snowdrop.opentracing.tracer.senders.HealthTrackingSender;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardedReporterTest {
+
+    private final List<FailingSender> senders = new ArrayList<>();
+    private final List<HealthTrackingSender> healthTrackingSenders = new ArrayList<>();
+    private final List<ShardedReporter.Shard> shards = new ArrayList<>();
+
+    private ShardedReporter createReporter(int shardCount) {
+        for (int i = 0; i < shardCount; i++) {
+            FailingSender sender = new FailingSender();
+            HealthTrackingSender healthTrackingSender = new HealthTrackingSender(sender, 2, 60000, 60000);
+            senders.add(sender);
+            healthTrackingSenders.add(healthTrackingSender);
+            shards.add(new ShardedReporter.Shard("shard-" + i, new InMemoryReporter(), healthTrackingSender));
+        }
+        return new ShardedReporter(shards);
+    }
+
+    @Test
+    public void testTracesAreSpreadAndStable() {
+        ShardedReporter reporter = createReporter(4);
+
+        Map<ShardedReporter.Shard, Integer> counts = new HashMap<>();
+        for (long traceId = 1; traceId <= 4000; traceId++) {
+            ShardedReporter.Shard shard = reporter.select(traceId);
+            assertThat(reporter.select(traceId)).isSameAs(shard);
+            counts.merge(shard, 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(4);
+        for (int count : counts.values()) {
+            assertThat(count).isBetween(800, 1200);
+        }
+    }
+
+    @Test
+    public void testUnavailableShardIsEjected() throws SenderException {
+        ShardedReporter reporter = createReporter(3);
+
+        Map<Long, ShardedReporter.Shard> before = new HashMap<>();
+        for (long traceId = 1; traceId <= 300; traceId++) {
+            before.put(traceId, reporter.select(traceId));
+        }
+
+        senders.get(0).failing = true;
+        for (int i = 0; i < 2; i++) {
+            try {
+                healthTrackingSenders.get(0).flush();
+            } catch (SenderException expected) {
+            }
+        }
+        assertThat(healthTrackingSenders.get(0).isAvailable()).isFalse();
+
+        for (long traceId = 1; traceId <= 300; traceId++) {
+            ShardedReporter.Shard shard = reporter.select(traceId);
+            assertThat(shard).isNotSameAs(shards.get(0));
+            if (before.get(traceId) != shards.get(0)) {
+                // only the traces of the ejected shard move
+                assertThat(shard).isSameAs(before.get(traceId));
+            }
+        }
+
+        senders.get(0).failing = false;
+        healthTrackingSenders.get(0).flush();
+        assertThat(healthTrackingSenders.get(0).isAvailable()).isTrue();
+    }
+
+    private static class FailingSender implements Sender {
+        private boolean failing;
+
+        @Override
+        public int append(Span span) {
+            return 0;
+        }
+
+        @Override
+        public int flush() throws SenderException {
+            if (failing) {
+                throw new SenderException("failing", null, 1);
+            }
+            return 1;
+        }
+
+        @Override
+        public int close() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.reporters;
+
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.metrics.InMemoryStatsReporter;
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.metrics.NullStatsReporter;
+import com.uber.jaeger.metrics.StatsFactoryImpl;
+import com.uber.jaeger.samplers.ConstSampler;
+import io.opentracing.References;
+import io.opentracing.Span;
+import io.opentracing.tag.Tags;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanFileReporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSpansAreReadBack() throws Exception {
+        File directory = folder.newFolder();
+        SpanFileReporter reporter = reporter(directory, 1024 * 1024, 4);
+        Tracer tracer = new Tracer.Builder("file-test", reporter, new ConstSampler(true)).build();
+
+        Span parent = tracer.buildSpan("parent").withStartTimestamp(1000).start();
+        Span child = tracer.buildSpan("child")
+                .asChildOf(parent)
+                .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT)
+                .withTag("count", 3)
+                .withTag("quoted", "a \"b\"")
+                .withStartTimestamp(1100)
+                .start();
+        child.log(1150, Collections.singletonMap("event", "retry"));
+        child.finish(1200);
+        parent.finish(2000);
+        Span follower = tracer.buildSpan("follower")
+                .asChildOf(parent)
+                .addReference(References.FOLLOWS_FROM, child.context())
+                .withStartTimestamp(3000)
+                .start();
+        follower.finish(3500);
+        tracer.close();
+
+        List<File> segments = SpanFileReporter.listSegments(directory);
+        assertThat(segments).hasSize(1);
+        List<SpanFileReader.SpanRecord> spans = SpanFileReader.read(segments.get(0));
+        assertThat(spans).hasSize(3);
+
+        SpanFileReader.SpanRecord readChild = spans.get(0);
+        SpanFileReader.SpanRecord readParent = spans.get(1);
+        assertThat(readChild.getOperationName()).isEqualTo("child");
+        assertThat(readChild.getProcess()).containsEntry("service.name", "file-test");
+        assertThat(readChild.getTraceId()).isEqualTo(((com.uber.jaeger.Span) child).context().getTraceId());
+        assertThat(readChild.getSpanId()).isEqualTo(((com.uber.jaeger.Span) child).context().getSpanId());
+        assertThat(readChild.getStartTime()).isEqualTo(1100);
+        assertThat(readChild.getDuration()).isEqualTo(100);
+        assertThat(readChild.getTags())
+                .containsEntry("span.kind", "client")
+                .containsEntry("count", 3L)
+                .containsEntry("quoted", "a \"b\"");
+        assertThat(readChild.getReferences()).hasSize(1);
+        assertThat(readChild.getReferences().get(0))
+                .containsEntry("refType", "CHILD_OF")
+                .containsEntry("spanID", readParent.getSpanId());
+        assertThat(readChild.getLogs()).hasSize(1);
+        assertThat(readChild.getLogs().get(0).getTimestamp()).isEqualTo(1150);
+        assertThat(readChild.getLogs().get(0).getFields()).containsEntry("event", "retry");
+
+        assertThat(readParent.getReferences()).isEmpty();
+        assertThat(spans.get(2).getReferences()).hasSize(2);
+        assertThat(spans.get(2).getReferences().get(1))
+                .containsEntry("refType", "FOLLOWS_FROM")
+                .containsEntry("traceID", readChild.getTraceId())
+                .containsEntry("spanID", readChild.getSpanId());
+
+        StringWriter json = new StringWriter();
+        SpanFileReader.writeJson(spans, json);
+        assertThat(json.toString())
+                .contains(String.format("{\"traceID\":\"%016x\",\"spans\":[", readParent.getTraceId()))
+                .contains("\"operationName\":\"child\"")
+                .contains("{\"key\":\"quoted\",\"type\":\"string\",\"value\":\"a \\\"b\\\"\"}")
+                .contains("\"processes\":{\"p1\":{\"serviceName\":\"file-test\"");
+    }
+
+    @Test
+    public void testSegmentsAreRolledAndDeleted() throws Exception {
+        File directory = folder.newFolder();
+        SpanFileReporter reporter = reporter(directory, 4096, 3);
+        Tracer tracer = new Tracer.Builder("file-test", reporter, new ConstSampler(true)).build();
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String name = "operation-" + i;
+            names.add(name);
+            tracer.buildSpan(name).withTag("index", i).start().finish();
+        }
+        tracer.close();
+
+        List<File> segments = SpanFileReporter.listSegments(directory);
+        assertThat(segments).hasSize(3);
+
+        List<String> read = new ArrayList<>();
+        for (File segment : segments) {
+            List<SpanFileReader.SpanRecord> spans = SpanFileReader.read(segment);
+            assertThat(spans).isNotEmpty();
+            assertThat(spans.get(0).getProcess()).containsEntry("service.name", "file-test");
+            for (SpanFileReader.SpanRecord span : spans) {
+                read.add(span.getOperationName());
+            }
+        }
+        // the oldest segments were deleted, the newest spans are kept in order
+        assertThat(read).isEqualTo(names.subList(names.size() - read.size(), names.size()));
+    }
+
+    @Test
+    public void testOversizedSpanDoesNotRollSegment() throws Exception {
+        File directory = folder.newFolder();
+        InMemoryStatsReporter stats = new InMemoryStatsReporter();
+        SpanFileReporter reporter = new SpanFileReporter(directory, 1024, 1, 10000, 10,
+                new Metrics(new StatsFactoryImpl(stats)));
+        Tracer tracer = new Tracer.Builder("file-test", reporter, new ConstSampler(true)).build();
+
+        tracer.buildSpan("before").start().finish();
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 2048; i++) {
+            large.append('x');
+        }
+        tracer.buildSpan("oversized").withTag("large", large.toString()).start().finish();
+        tracer.buildSpan("after").start().finish();
+        tracer.close();
+
+        List<File> segments = SpanFileReporter.listSegments(directory);
+        assertThat(segments).hasSize(1);
+        List<SpanFileReader.SpanRecord> spans = SpanFileReader.read(segments.get(0));
+        assertThat(spans).extracting(SpanFileReader.SpanRecord::getOperationName).containsExactly("before", "after");
+        assertThat(stats.counters.get("jaeger.spans.state=dropped")).isEqualTo(1);
+        assertThat(stats.counters.get("jaeger.reporter-spans.state=success")).isEqualTo(2);
+    }
+
+    private static SpanFileReporter reporter(File directory, int segmentSize, int maxSegments) {
+        return new SpanFileReporter(directory, segmentSize, maxSegments, 10000, 10,
+                new Metrics(new StatsFactoryImpl(new NullStatsReporter())));
+    }
+}
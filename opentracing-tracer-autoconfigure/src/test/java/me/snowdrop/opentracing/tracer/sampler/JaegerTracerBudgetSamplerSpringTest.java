@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.sampler;
+
+import com.uber.jaeger.samplers.Sampler;
+import me.snowdrop.opentracing.tracer.AbstractTracerSpringTest;
+import me.snowdrop.opentracing.tracer.samplers.BudgetSampler;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(
+        properties = {
+                "spring.main.banner-mode=off",
+                "opentracing.jaeger.budget.enabled=true",
+                "opentracing.jaeger.budget.per-key-rate=0.1"
+        }
+)
+public class JaegerTracerBudgetSamplerSpringTest extends AbstractTracerSpringTest {
+
+    @Autowired
+    private Sampler sampler;
+
+    @Test
+    public void testSamplerIsBudgeted() {
+        // neither reloadable nor overridden by the endpoint, the sampler is not wrapped
+        assertThat(sampler).isInstanceOf(BudgetSampler.class);
+
+        assertThat(sampler.sample("noisy", 1).isSampled()).isTrue();
+        assertThat(sampler.sample("noisy", 2).isSampled()).isFalse();
+        assertThat(sampler.sample("quiet", 3).isSampled()).isTrue();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.samplers;
+
+import com.uber.jaeger.utils.Clock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeyedRateLimiterTest {
+
+    private ManualClock clock;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock();
+    }
+
+    @Test
+    public void testKeysHaveSeparateBudgets() {
+        KeyedRateLimiter rateLimiter = new KeyedRateLimiter(1.0, 2.0, 10, 60000, clock);
+
+        assertThat(rateLimiter.checkCredit("noisy")).isTrue();
+        assertThat(rateLimiter.checkCredit("noisy")).isTrue();
+        assertThat(rateLimiter.checkCredit("noisy")).isFalse();
+        assertThat(rateLimiter.checkCredit("quiet")).isTrue();
+
+        clock.advance(1, TimeUnit.SECONDS);
+        assertThat(rateLimiter.checkCredit("noisy")).isTrue();
+        assertThat(rateLimiter.checkCredit("noisy")).isFalse();
+    }
+
+    @Test
+    public void testUnspentBudgetIsRedistributed() {
+        KeyedRateLimiter rateLimiter = new KeyedRateLimiter(1.0, 1.0, 10, 60000, clock);
+
+        assertThat(rateLimiter.checkCredit("noisy")).isTrue();
+        assertThat(rateLimiter.checkCredit("quiet")).isTrue();
+
+        clock.advance(3, TimeUnit.SECONDS);
+        // the quiet key can only hold one credit, the other two are shared
+        assertThat(rateLimiter.checkCredit("quiet")).isTrue();
+
+        assertThat(rateLimiter.checkCredit("noisy")).isTrue();
+        assertThat(rateLimiter.checkCredit("noisy")).isTrue();
+        assertThat(rateLimiter.checkCredit("noisy")).isTrue();
+        assertThat(rateLimiter.checkCredit("noisy")).isFalse();
+    }
+
+    @Test
+    public void testIdleBudgetIsSharedWithoutUsingTheIdleKey() {
+        KeyedRateLimiter rateLimiter = new KeyedRateLimiter(1.0, 1.0, 10, 60000, clock);
+
+        assertThat(rateLimiter.checkCredit("busy")).isTrue();
+        assertThat(rateLimiter.checkCredit("idle")).isTrue();
+
+        clock.advance(1500, TimeUnit.MILLISECONDS);
+        // half a credit overflows from each bucket when they are swept
+        assertThat(rateLimiter.checkCredit("busy")).isTrue();
+        assertThat(rateLimiter.checkCredit("busy")).isTrue();
+        assertThat(rateLimiter.checkCredit("busy")).isFalse();
+    }
+
+    @Test
+    public void testKeysAreBoundedAndExpire() {
+        KeyedRateLimiter rateLimiter = new KeyedRateLimiter(1.0, 1.0, 2, 1000, clock);
+
+        assertThat(rateLimiter.checkCredit("a")).isTrue();
+        assertThat(rateLimiter.checkCredit("b")).isTrue();
+        assertThat(rateLimiter.checkCredit("c")).isFalse();
+        assertThat(rateLimiter.getKeyCount()).isEqualTo(2);
+
+        clock.advance(1, TimeUnit.SECONDS);
+        assertThat(rateLimiter.checkCredit("c")).isTrue();
+        assertThat(rateLimiter.getKeyCount()).isEqualTo(1);
+    }
+
+    private static class ManualClock implements Clock {
+        private long nanos;
+
+        void advance(long duration, TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+
+        @Override
+        public long currentTimeMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+
+        @Override
+        public long currentNanoTicks() {
+            return nanos;
+        }
+
+        @Override
+        public boolean isMicrosAccurate() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.samplers;
+
+import com.uber.jaeger.samplers.ConstSampler;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReloadableSamplerTest {
+
+    @Test
+    public void testOverrideExpires() throws InterruptedException {
+        ReloadableSampler sampler = new ReloadableSampler(new ConstSampler(true));
+
+        sampler.override(new ConstSampler(false), 50);
+        assertThat(sampler.sample("test", 1).isSampled()).isFalse();
+
+        Thread.sleep(100);
+        assertThat(sampler.sample("test", 1).isSampled()).isTrue();
+        assertThat(sampler.getOverride()).isNull();
+    }
+
+    @Test
+    public void testSwapKeepsOverride() {
+        ReloadableSampler sampler = new ReloadableSampler(new ConstSampler(true));
+
+        sampler.override(new ConstSampler(false), 60000);
+        sampler.swap(new ConstSampler(true));
+        assertThat(sampler.sample("test", 1).isSampled()).isFalse();
+
+        sampler.clearOverride();
+        assertThat(sampler.sample("test", 1).isSampled()).isTrue();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.samplers;
+
+import com.uber.jaeger.metrics.Metrics;
+import com.uber.jaeger.metrics.NullStatsReporter;
+import com.uber.jaeger.metrics.StatsFactoryImpl;
+import com.uber.jaeger.samplers.ConstSampler;
+import com.uber.jaeger.samplers.Sampler;
+import com.uber.jaeger.samplers.SamplingManager;
+import com.uber.jaeger.samplers.http.ProbabilisticSamplingStrategy;
+import com.uber.jaeger.samplers.http.SamplingStrategyResponse;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RemoteSamplingPollerTest {
+
+    @Test
+    public void testSamplersShareOneThread() throws Exception {
+        Map<String, Double> rates = new ConcurrentHashMap<>();
+        rates.put("billing", 0.0);
+        rates.put("inventory", 1.0);
+        SamplingManager manager = serviceName ->
+                new SamplingStrategyResponse(new ProbabilisticSamplingStrategy(rates.get(serviceName)), null, null);
+        RemoteSamplingPoller poller = new RemoteSamplingPoller(manager, 50,
+                new Metrics(new StatsFactoryImpl(new NullStatsReporter())));
+
+        Sampler billing = poller.create("billing", new ConstSampler(true));
+        Sampler inventory = poller.create("inventory", new ConstSampler(false));
+        awaitSampled(billing, false);
+        awaitSampled(inventory, true);
+        assertThat(pollerThreads()).isEqualTo(1);
+
+        rates.put("billing", 1.0);
+        awaitSampled(billing, true);
+
+        billing.close();
+        assertThat(poller.getSamplerCount()).isEqualTo(1);
+        inventory.close();
+        assertThat(poller.getSamplerCount()).isEqualTo(0);
+        for (int i = 0; i < 100 && pollerThreads() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(pollerThreads()).isEqualTo(0);
+    }
+
+    private static void awaitSampled(Sampler sampler, boolean sampled) throws InterruptedException {
+        for (int i = 0; i < 100 && sampler.sample("test", 1).isSampled() != sampled; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(sampler.sample("test", 1).isSampled()).isEqualTo(sampled);
+    }
+
+    private static long pollerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> "jaeger.RemoteSamplingPoller".equals(thread.getName()))
+                .count();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.samplers;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+public class TraceIdRatioSamplerTest {
+
+    @Test
+    public void testSequentialIdsAreSampledAtTheConfiguredRate() {
+        TraceIdRatioSampler sampler = new TraceIdRatioSampler(0.1);
+
+        int sampled = 0;
+        for (long id = 1; id <= 100000; id++) {
+            if (sampler.sample("operation", id).isSampled()) {
+                sampled++;
+            }
+        }
+        assertThat(sampled / 100000.0).isCloseTo(0.1, offset(0.005));
+    }
+
+    @Test
+    public void testHigherRatesSampleASupersetOfLowerRates() {
+        TraceIdRatioSampler low = new TraceIdRatioSampler(0.2);
+        TraceIdRatioSampler otherLow = new TraceIdRatioSampler(0.2);
+        TraceIdRatioSampler high = new TraceIdRatioSampler(0.6);
+
+        for (long id = -5000; id < 5000; id++) {
+            long traceId = id * 0x9E3779B97F4A7C15L;
+            boolean sampled = low.sample("a", traceId).isSampled();
+            assertThat(otherLow.sample("b", traceId).isSampled()).isEqualTo(sampled);
+            if (sampled) {
+                assertThat(high.sample("a", traceId).isSampled()).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void testBoundaries() {
+        TraceIdRatioSampler never = new TraceIdRatioSampler(0.0);
+        TraceIdRatioSampler always = new TraceIdRatioSampler(1.0);
+
+        for (long id : new long[]{0, 1, -1, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            assertThat(never.sample("operation", id).isSampled()).isFalse();
+            assertThat(always.sample("operation", id).isSampled()).isTrue();
+        }
+        assertThat(always.sample("operation", 1).getTags())
+                .containsEntry("sampler.type", TraceIdRatioSampler.TYPE)
+                .containsEntry("sampler.param", 1.0);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.scopes;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ArrayStackScopeManagerTest {
+
+    private final ArrayStackScopeManager scopeManager = new ArrayStackScopeManager(1);
+    private final MockTracer tracer = new MockTracer(scopeManager);
+
+    @Test
+    public void testNestedActivationRestoresParent() {
+        MockSpan parent = tracer.buildSpan("parent").start();
+        MockSpan child = tracer.buildSpan("child").start();
+
+        Scope parentScope = scopeManager.activate(parent, true);
+        Scope childScope = scopeManager.activate(child, false);
+        assertThat(scopeManager.active().span()).isSameAs(child);
+
+        childScope.close();
+        assertThat(scopeManager.active()).isSameAs(parentScope);
+        assertThat(tracer.finishedSpans()).isEmpty();
+
+        parentScope.close();
+        assertThat(scopeManager.active()).isNull();
+        assertThat(tracer.finishedSpans()).containsExactly(parent);
+    }
+
+    @Test
+    public void testScopesAreReused() {
+        MockSpan first = tracer.buildSpan("first").start();
+        MockSpan second = tracer.buildSpan("second").start();
+
+        Scope firstScope = scopeManager.activate(first, false);
+        firstScope.close();
+        Scope secondScope = scopeManager.activate(second, false);
+
+        assertThat(secondScope).isSameAs(firstScope);
+        assertThat(secondScope.span()).isSameAs(second);
+        secondScope.close();
+    }
+
+    @Test
+    public void testOnlyActiveScopeCanBeClosed() {
+        Scope outer = scopeManager.activate(tracer.buildSpan("outer").start(), false);
+        Scope inner = scopeManager.activate(tracer.buildSpan("inner").start(), false);
+
+        outer.close();
+        assertThat(scopeManager.active()).isSameAs(inner);
+
+        inner.close();
+        outer.close();
+        assertThat(scopeManager.active()).isNull();
+    }
+
+    @Test
+    public void testScopesAreThreadConfined() throws InterruptedException {
+        Scope scope = scopeManager.activate(tracer.buildSpan("span").start(), false);
+
+        AtomicReference<Scope> activeInOtherThread = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            activeInOtherThread.set(scopeManager.active());
+            scope.close();
+        });
+        thread.start();
+        thread.join();
+
+        assertThat(activeInOtherThread.get()).isNull();
+        assertThat(scopeManager.active()).isSameAs(scope);
+        scope.close();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.metrics.InMemoryStatsReporter;
+import com.uber.jaeger.metrics.StatsFactoryImpl;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import com.uber.jaeger.senders.Sender;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class CircuitBreakerSenderTest {
+
+    private final Tracer tracer = new Tracer.Builder("test", new InMemoryReporter(), new ConstSampler(true)).build();
+    private final InMemoryStatsReporter statsReporter = new InMemoryStatsReporter();
+    private final CountingSender delegate = new CountingSender();
+    private final CircuitBreakerSender sender =
+            new CircuitBreakerSender(delegate, 2, 50, 1000, new StatsFactoryImpl(statsReporter));
+
+    @Test
+    public void testCircuitOpensAndCloses() throws Exception {
+        delegate.failing = true;
+        flushAndFail();
+        assertThat(sender.getState()).isEqualTo(CircuitBreakerSender.State.CLOSED);
+        flushAndFail();
+        assertThat(sender.getState()).isEqualTo(CircuitBreakerSender.State.OPEN);
+
+        // spans are dropped before reaching the delegate while the circuit is open
+        assertThat(sender.append(span())).isEqualTo(0);
+        assertThat(sender.flush()).isEqualTo(0);
+        assertThat(delegate.appended).isEqualTo(0);
+        assertThat(statsReporter.counters).containsEntry("jaeger.sender-circuit-dropped", 1L);
+
+        Thread.sleep(100);
+        delegate.failing = false;
+        sender.append(span());
+        assertThat(sender.getState()).isEqualTo(CircuitBreakerSender.State.HALF_OPEN);
+        assertThat(sender.flush()).isEqualTo(1);
+        assertThat(sender.getState()).isEqualTo(CircuitBreakerSender.State.CLOSED);
+
+        assertThat(statsReporter.counters)
+                .containsEntry("jaeger.sender-circuit.state=open", 1L)
+                .containsEntry("jaeger.sender-circuit.state=half-open", 1L)
+                .containsEntry("jaeger.sender-circuit.state=closed", 1L);
+    }
+
+    @Test
+    public void testFailedProbeReopensCircuit() throws Exception {
+        delegate.failing = true;
+        flushAndFail();
+        flushAndFail();
+
+        Thread.sleep(100);
+        sender.append(span());
+        flushAndFail();
+        assertThat(sender.getState()).isEqualTo(CircuitBreakerSender.State.OPEN);
+        assertThat(statsReporter.counters).containsEntry("jaeger.sender-circuit.state=open", 2L);
+    }
+
+    private void flushAndFail() {
+        try {
+            sender.flush();
+            fail("Expected the flush to fail");
+        } catch (SenderException expected) {
+        }
+    }
+
+    private Span span() {
+        Span span = (Span) tracer.buildSpan("test").start();
+        span.finish();
+        return span;
+    }
+
+    private static class CountingSender implements Sender {
+        private boolean failing;
+        private int appended;
+
+        @Override
+        public int append(Span span) {
+            appended++;
+            return 0;
+        }
+
+        @Override
+        public int flush() throws SenderException {
+            if (failing) {
+                throw new SenderException("failing", null, 1);
+            }
+            int n = appended;
+            appended = 0;
+            return n;
+        }
+
+        @Override
+        public int close() {
+            return 0;
+        }
+    }
+}
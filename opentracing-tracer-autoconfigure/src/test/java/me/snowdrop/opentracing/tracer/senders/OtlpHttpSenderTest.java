@@ -0,0 +1,213 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import com.sun.net.httpserver.HttpServer;
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import io.opentracing.tag.Tags;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Decodes what the sender posts with the generic protobuf parser, using the field numbers of the OTLP messages
+ */
+public class OtlpHttpSenderTest {
+
+    private final Tracer tracer = new Tracer.Builder("otlp-test", new InMemoryReporter(), new ConstSampler(true)).build();
+    private final List<byte[]> requests = new CopyOnWriteArrayList<>();
+    private final List<String> contentTypes = new CopyOnWriteArrayList<>();
+    private volatile int responseCode = 200;
+    private HttpServer server;
+    private String url;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/traces", exchange -> {
+            contentTypes.add(exchange.getRequestHeaders().getFirst("Content-Type"));
+            requests.add(readFully(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(responseCode, -1);
+            exchange.close();
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/v1/traces";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testBatchIsEncoded() throws Exception {
+        OtlpHttpSender sender = new OtlpHttpSender(url, 0);
+
+        Span parent = (Span) tracer.buildSpan("parent")
+                .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_SERVER)
+                .withTag("string", "héllo ✓ 😀")
+                .withTag("long", 42)
+                .withTag("bool", true)
+                .withTag("double", 0.5)
+                .withStartTimestamp(1000)
+                .start();
+        Span child = (Span) tracer.buildSpan("child")
+                .asChildOf(parent)
+                .withTag(Tags.ERROR.getKey(), true)
+                .withStartTimestamp(1100)
+                .start();
+        child.log(1150, Collections.singletonMap("event", "retry"));
+        child.finish(1200);
+        parent.finish(2000);
+
+        assertThat(sender.append(child)).isEqualTo(0);
+        assertThat(sender.append(parent)).isEqualTo(0);
+        assertThat(sender.flush()).isEqualTo(2);
+
+        assertThat(requests).hasSize(1);
+        assertThat(contentTypes).containsExactly("application/x-protobuf");
+        UnknownFieldSet resourceSpans = message(UnknownFieldSet.parseFrom(requests.get(0)), 1).get(0);
+
+        UnknownFieldSet resource = message(resourceSpans, 1).get(0);
+        assertThat(attributes(resource, 1)).containsEntry("service.name", "otlp-test");
+
+        UnknownFieldSet scopeSpans = message(resourceSpans, 2).get(0);
+        List<UnknownFieldSet> spans = message(scopeSpans, 2);
+        assertThat(spans).hasSize(2);
+
+        UnknownFieldSet encodedChild = spans.get(0);
+        assertThat(string(encodedChild, 5)).isEqualTo("child");
+        assertThat(id(encodedChild, 1)).hasSize(16);
+        assertThat(ByteBuffer.wrap(id(encodedChild, 1), 8, 8).getLong()).isEqualTo(child.context().getTraceId());
+        assertThat(ByteBuffer.wrap(id(encodedChild, 2)).getLong()).isEqualTo(child.context().getSpanId());
+        assertThat(ByteBuffer.wrap(id(encodedChild, 4)).getLong()).isEqualTo(parent.context().getSpanId());
+        assertThat(encodedChild.getField(6).getVarintList()).containsExactly(1L);
+        assertThat(encodedChild.getField(7).getFixed64List()).containsExactly(1100_000L);
+        assertThat(encodedChild.getField(8).getFixed64List()).containsExactly(1200_000L);
+        UnknownFieldSet event = message(encodedChild, 11).get(0);
+        assertThat(event.getField(1).getFixed64List()).containsExactly(1150_000L);
+        assertThat(string(event, 2)).isEqualTo("retry");
+        assertThat(message(encodedChild, 15).get(0).getField(3).getVarintList()).containsExactly(2L);
+
+        UnknownFieldSet encodedParent = spans.get(1);
+        assertThat(string(encodedParent, 5)).isEqualTo("parent");
+        assertThat(encodedParent.hasField(4)).isFalse();
+        assertThat(encodedParent.getField(6).getVarintList()).containsExactly(2L);
+        assertThat(attributes(encodedParent, 9))
+                .containsEntry("string", "héllo ✓ 😀")
+                .containsEntry("long", 42L)
+                .containsEntry("bool", 1L)
+                .containsEntry("double", Double.doubleToRawLongBits(0.5))
+                .doesNotContainKey(Tags.SPAN_KIND.getKey());
+    }
+
+    @Test
+    public void testFlushesWhenPayloadIsFull() throws Exception {
+        OtlpHttpSender sender = new OtlpHttpSender(url, 200);
+
+        int sent = 0;
+        for (int i = 0; i < 10; i++) {
+            Span span = (Span) tracer.buildSpan("span-" + i).start();
+            span.finish();
+            sent += sender.append(span);
+        }
+        sent += sender.flush();
+
+        assertThat(sent).isEqualTo(10);
+        assertThat(requests.size()).isGreaterThan(1);
+    }
+
+    @Test
+    public void testFailedRequestReportsDroppedSpans() {
+        responseCode = 503;
+        OtlpHttpSender sender = new OtlpHttpSender(url, 0);
+
+        Span span = (Span) tracer.buildSpan("span").start();
+        span.finish();
+        try {
+            sender.append(span);
+            sender.flush();
+            fail("Expected the flush to fail");
+        } catch (SenderException e) {
+            assertThat(e.getDroppedSpanCount()).isEqualTo(1);
+        }
+    }
+
+    private static List<UnknownFieldSet> message(UnknownFieldSet parent, int field) throws IOException {
+        List<UnknownFieldSet> messages = new ArrayList<>();
+        for (ByteString bytes : parent.getField(field).getLengthDelimitedList()) {
+            messages.add(UnknownFieldSet.parseFrom(bytes));
+        }
+        return messages;
+    }
+
+    private static String string(UnknownFieldSet message, int field) {
+        return message.getField(field).getLengthDelimitedList().get(0).toStringUtf8();
+    }
+
+    private static byte[] id(UnknownFieldSet message, int field) {
+        return message.getField(field).getLengthDelimitedList().get(0).toByteArray();
+    }
+
+    /**
+     * KeyValue attributes, with string values decoded and every other kind of value as its raw varint or fixed64
+     */
+    private static Map<String, Object> attributes(UnknownFieldSet message, int field) throws IOException {
+        Map<String, Object> attributes = new HashMap<>();
+        for (UnknownFieldSet keyValue : message(message, field)) {
+            UnknownFieldSet value = message(keyValue, 2).get(0);
+            Object decoded;
+            if (value.hasField(1)) {
+                decoded = string(value, 1);
+            } else if (value.hasField(4)) {
+                decoded = value.getField(4).getFixed64List().get(0);
+            } else {
+                decoded = value.getField(value.hasField(2) ? 2 : 3).getVarintList().get(0);
+            }
+            attributes.put(string(keyValue, 1), decoded);
+        }
+        return attributes;
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import com.uber.jaeger.senders.ThriftSender;
+import com.uber.jaeger.thriftjava.Process;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PooledThriftSenderTest {
+
+    private final Map<String, List<String>> sent = new LinkedHashMap<>();
+
+    private final ThriftSender delegate = new ThriftSender(new TBinaryProtocol.Factory(), 0) {
+        @Override
+        public void send(Process process, List<com.uber.jaeger.thriftjava.Span> spans) {
+            List<String> operations = sent.computeIfAbsent(process.getServiceName(), k -> new ArrayList<>());
+            spans.forEach(span -> operations.add(span.getOperationName()));
+        }
+    };
+
+    @Test
+    public void testSpansAreBatchedPerProcess() throws Exception {
+        Tracer orders = new Tracer.Builder("orders", new InMemoryReporter(), new ConstSampler(true)).build();
+        Tracer billing = new Tracer.Builder("billing", new InMemoryReporter(), new ConstSampler(true)).build();
+        PooledThriftSender sender = new PooledThriftSender(delegate, new TBinaryProtocol.Factory(), 0,
+                new ThriftSpanPool(16, true));
+
+        sender.append(finished(orders, "place"));
+        sender.append(finished(billing, "charge"));
+        sender.append(finished(orders, "ship"));
+
+        assertThat(sender.flush()).isEqualTo(3);
+        assertThat(sent).containsOnlyKeys("orders", "billing");
+        assertThat(sent.get("orders")).containsExactly("place", "ship");
+        assertThat(sent.get("billing")).containsExactly("charge");
+
+        sent.clear();
+        sender.append(finished(billing, "refund"));
+        assertThat(sender.flush()).isEqualTo(1);
+        assertThat(sent).containsOnlyKeys("billing");
+    }
+
+    private static Span finished(Tracer tracer, String operation) {
+        Span span = (Span) tracer.buildSpan(operation).start();
+        span.finish();
+        return span;
+    }
+}
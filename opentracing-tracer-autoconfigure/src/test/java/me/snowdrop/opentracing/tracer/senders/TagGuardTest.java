@@ -0,0 +1,140 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.metrics.InMemoryStatsReporter;
+import com.uber.jaeger.metrics.StatsFactoryImpl;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import com.uber.jaeger.senders.ThriftSender;
+import com.uber.jaeger.thriftjava.Process;
+import com.uber.jaeger.thriftjava.Tag;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TagGuardTest {
+
+    private final InMemoryStatsReporter statsReporter = new InMemoryStatsReporter();
+
+    @Test
+    public void testLongValuesAreTruncatedOrHashed() {
+        TagGuard truncating = new TagGuard(5, false, 10, 10, 60000, new StatsFactoryImpl(statsReporter));
+        assertThat(truncating.value("url", "http://example.com")).isEqualTo("http:");
+        assertThat(truncating.value("url", "short")).isEqualTo("short");
+        assertThat(truncating.value("count", 123456789L)).isEqualTo(123456789L);
+        assertThat(statsReporter.counters).containsEntry("jaeger.tag-guard.action=truncated", 1L);
+
+        TagGuard hashing = new TagGuard(5, true, 10, 10, 60000, new StatsFactoryImpl(statsReporter));
+        Object first = hashing.value("url", "http://example.com/a");
+        Object second = hashing.value("url", "http://example.com/b");
+        assertThat(first).isNotEqualTo(second);
+        assertThat(hashing.value("url", "http://example.com/a")).isEqualTo(first);
+        assertThat(statsReporter.counters).containsEntry("jaeger.tag-guard.action=hashed", 3L);
+    }
+
+    @Test
+    public void testValuesOverTheCardinalityLimitAreReplaced() {
+        TagGuard guard = new TagGuard(100, false, 1, 2, 60000, new StatsFactoryImpl(statsReporter));
+
+        String first = new String("user-1");
+        assertThat(guard.value("user", first)).isSameAs(first);
+        assertThat(guard.value("user", new String("user-1"))).isSameAs(first);
+        assertThat(guard.value("user", "user-2")).isEqualTo("user-2");
+        assertThat(guard.value("user", "user-3")).isEqualTo(TagGuard.OVERFLOW_VALUE);
+        assertThat(guard.value("user", "user-2")).isEqualTo("user-2");
+        assertThat(statsReporter.counters).containsEntry("jaeger.tag-guard.action=overflowed", 1L);
+
+        // only one key has a table of its own, the values of the other keys share one
+        assertThat(guard.value("other", "value-3")).isEqualTo("value-3");
+        assertThat(guard.value("another", "value-4")).isEqualTo("value-4");
+        assertThat(guard.value("other", "value-5")).isEqualTo(TagGuard.OVERFLOW_VALUE);
+        assertThat(guard.key(new String("user"))).isSameAs(guard.key("user"));
+    }
+
+    @Test
+    public void testTablesAreResetPeriodically() {
+        TagGuard guard = new TagGuard(100, false, 1, 1, 1000, new StatsFactoryImpl(statsReporter));
+
+        assertThat(guard.value("user", "user-1")).isEqualTo("user-1");
+        assertThat(guard.value("user", "user-2")).isEqualTo(TagGuard.OVERFLOW_VALUE);
+
+        guard.resetIfDue(System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+
+        assertThat(guard.value("user", "user-2")).isEqualTo("user-2");
+        assertThat(guard.value("user", "user-1")).isEqualTo(TagGuard.OVERFLOW_VALUE);
+    }
+
+    @Test
+    public void testSpanPoolConvertsTagsThroughTheGuard() {
+        Tracer tracer = new Tracer.Builder("test", new InMemoryReporter(), new ConstSampler(true)).build();
+        TagGuard guard = new TagGuard(4, false, 10, 10, 60000, new StatsFactoryImpl(statsReporter));
+        ThriftSpanPool pool = new ThriftSpanPool(0, false, guard);
+
+        Span span = (Span) tracer.buildSpan("test")
+                .withTag("http.url", "http://example.com")
+                .withTag("http.status_code", 200)
+                .start();
+        span.finish();
+
+        com.uber.jaeger.thriftjava.Span converted = pool.acquire(span);
+        for (Tag tag : converted.getTags()) {
+            if ("http.url".equals(tag.getKey())) {
+                assertThat(tag.getVStr()).isEqualTo("http");
+            } else if ("http.status_code".equals(tag.getKey())) {
+                assertThat(tag.getVLong()).isEqualTo(200);
+            }
+        }
+        assertThat(converted.getTags()).hasSize(span.getTags().size());
+    }
+
+    @Test
+    public void testBatchingSenderConvertsTagsThroughTheGuard() throws Exception {
+        Tracer tracer = new Tracer.Builder("test", new InMemoryReporter(), new ConstSampler(true)).build();
+        TagGuard guard = new TagGuard(4, false, 10, 10, 60000, new StatsFactoryImpl(statsReporter));
+        List<com.uber.jaeger.thriftjava.Span> sent = new ArrayList<>();
+        ThriftSender delegate = new ThriftSender(new TBinaryProtocol.Factory(), 0) {
+            @Override
+            public void send(Process process, List<com.uber.jaeger.thriftjava.Span> spans) {
+                sent.addAll(spans);
+            }
+        };
+        BatchingThriftSender sender = new BatchingThriftSender(delegate, new TBinaryProtocol.Factory(), 0, guard);
+
+        Span span = (Span) tracer.buildSpan("test")
+                .withTag("http.url", "http://example.com")
+                .withTag("http.status_code", 200)
+                .start();
+        span.finish();
+        sender.append(span);
+        assertThat(sender.flush()).isEqualTo(1);
+
+        assertThat(sent).hasSize(1);
+        for (Tag tag : sent.get(0).getTags()) {
+            if ("http.url".equals(tag.getKey())) {
+                assertThat(tag.getVStr()).isEqualTo("http");
+            } else if ("http.status_code".equals(tag.getKey())) {
+                assertThat(tag.getVLong()).isEqualTo(200);
+            }
+        }
+        assertThat(sent.get(0).getTags()).hasSize(span.getTags().size());
+    }
+}
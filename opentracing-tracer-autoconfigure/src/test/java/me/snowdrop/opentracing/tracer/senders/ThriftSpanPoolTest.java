@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.reporters.protocols.JaegerThriftSpanConverter;
+import com.uber.jaeger.samplers.ConstSampler;
+import io.opentracing.References;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ThriftSpanPoolTest {
+
+    private final InMemoryReporter reporter = new InMemoryReporter();
+    private final Tracer tracer = new Tracer.Builder("test", reporter, new ConstSampler(true)).build();
+
+    @Test
+    public void testConversionMatchesJaegerConverter() {
+        ThriftSpanPool pool = new ThriftSpanPool(10, true);
+
+        Span parent = (Span) tracer.buildSpan("parent")
+                .withTag("string", "value")
+                .withTag("long", 42)
+                .withTag("double", 4.2)
+                .withTag("bool", true)
+                .start();
+        parent.log("message");
+        parent.log(Collections.singletonMap("key", "value"));
+        parent.finish();
+
+        com.uber.jaeger.thriftjava.Span converted = pool.acquire(parent);
+        assertThat(converted).isEqualTo(JaegerThriftSpanConverter.convertSpan(parent));
+        pool.release(converted);
+
+        Span child = (Span) tracer.buildSpan("child")
+                .addReference(References.FOLLOWS_FROM, parent.context())
+                .withTag("other", "value")
+                .start();
+        child.finish();
+
+        com.uber.jaeger.thriftjava.Span reused = pool.acquire(child);
+        assertThat(reused).isSameAs(converted);
+        assertThat(reused).isEqualTo(JaegerThriftSpanConverter.convertSpan(child));
+    }
+
+    @Test
+    public void testPoolTracksOutstandingSpans() {
+        ThriftSpanPool pool = new ThriftSpanPool(1, true);
+
+        Span span = (Span) tracer.buildSpan("span").start();
+        span.finish();
+
+        com.uber.jaeger.thriftjava.Span first = pool.acquire(span);
+        com.uber.jaeger.thriftjava.Span second = pool.acquire(span);
+        assertThat(pool.getOutstanding()).isEqualTo(2);
+
+        pool.release(first);
+        pool.release(second);
+        pool.release(second);
+        assertThat(pool.getOutstanding()).isEqualTo(0);
+        assertThat(pool.getPooled()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package me.snowdrop.opentracing.tracer.senders;
+
+import com.uber.jaeger.Span;
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.exceptions.SenderException;
+import com.uber.jaeger.reporters.InMemoryReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import com.uber.jaeger.thriftjava.Batch;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TMemoryInputTransport;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Runs against a stub agent decoding the length framed batches, skipped on Java versions without Unix domain sockets
+ */
+public class UnixSocketSenderTest {
+
+    private final Tracer tracer = new Tracer.Builder("uds-test", new InMemoryReporter(), new ConstSampler(true)).build();
+    private final BlockingQueue<Batch> batches = new LinkedBlockingQueue<>();
+    private File directory;
+    private String path;
+    private ServerSocketChannel server;
+    private Thread acceptor;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(UnixSocketSender.isSupported());
+        directory = Files.createTempDirectory("uds").toFile();
+        path = new File(directory, "agent.sock").getPath();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        stopServer();
+        if (directory != null) {
+            new File(path).delete();
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void testBatchLargerThanDatagramIsSentWhole() throws Exception {
+        startServer();
+        UnixSocketSender sender = new UnixSocketSender(path, 0);
+
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'x');
+        String value = new String(chars);
+        for (int i = 0; i < 200; i++) {
+            Span span = (Span) tracer.buildSpan("op-" + i).withTag("payload", value).start();
+            span.finish();
+            assertThat(sender.append(span)).isEqualTo(0);
+        }
+        assertThat(sender.flush()).isEqualTo(200);
+
+        Batch batch = batches.poll(5, TimeUnit.SECONDS);
+        assertThat(batch).isNotNull();
+        assertThat(batch.getProcess().getServiceName()).isEqualTo("uds-test");
+        assertThat(batch.getSpans()).hasSize(200);
+        assertThat(batch.getSpans().get(199).getOperationName()).isEqualTo("op-199");
+        sender.close();
+    }
+
+    @Test
+    public void testReconnectsAfterFailure() throws Exception {
+        UnixSocketSender sender = new UnixSocketSender(path, 0);
+
+        Span span = (Span) tracer.buildSpan("first").start();
+        span.finish();
+        sender.append(span);
+        try {
+            sender.flush();
+            fail("no agent is listening");
+        } catch (SenderException e) {
+            assertThat(e.getDroppedSpanCount()).isEqualTo(1);
+        }
+
+        startServer();
+        span = (Span) tracer.buildSpan("second").start();
+        span.finish();
+        sender.append(span);
+        assertThat(sender.flush()).isEqualTo(1);
+
+        Batch batch = batches.poll(5, TimeUnit.SECONDS);
+        assertThat(batch).isNotNull();
+        assertThat(batch.getSpans()).hasSize(1);
+        assertThat(batch.getSpans().get(0).getOperationName()).isEqualTo("second");
+        sender.close();
+    }
+
+    private void startServer() throws Exception {
+        ProtocolFamily unix = UnixSocketSender.unixProtocolFamily();
+        server = (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class)
+                .invoke(null, unix);
+        server.bind(UnixSocketSender.address(path));
+        acceptor = new Thread(() -> {
+            try (SocketChannel channel = server.accept()) {
+                ByteBuffer length = ByteBuffer.allocate(4);
+                while (readFully(channel, length)) {
+                    ByteBuffer frame = ByteBuffer.allocate(length.getInt(0));
+                    if (!readFully(channel, frame)) {
+                        return;
+                    }
+                    Batch batch = new Batch();
+                    batch.read(new TBinaryProtocol(new TMemoryInputTransport(frame.array())));
+                    batches.add(batch);
+                    length.clear();
+                }
+            } catch (Exception e) {
+                // the server was stopped
+            }
+        });
+        acceptor.start();
+    }
+
+    private void stopServer() throws Exception {
+        if (server != null) {
+            server.close();
+            acceptor.join(5000);
+        }
+    }
+
+    private static boolean readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
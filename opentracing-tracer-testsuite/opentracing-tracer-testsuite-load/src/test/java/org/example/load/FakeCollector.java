@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.example.load;
+
+import com.sun.net.httpserver.HttpServer;
+import com.uber.jaeger.thriftjava.Batch;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TIOStreamTransport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the HTTP endpoint of the Jaeger collector, which decodes and counts the spans it receives
+ */
+public class FakeCollector implements AutoCloseable {
+
+    private final HttpServer server;
+    private final AtomicLong spans = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public FakeCollector() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/traces", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                Batch batch = new Batch();
+                batch.read(new TBinaryProtocol(new TIOStreamTransport(body)));
+                spans.addAndGet(batch.getSpansSize());
+                batches.incrementAndGet();
+                exchange.sendResponseHeaders(202, -1);
+            } catch (TException e) {
+                exchange.sendResponseHeaders(400, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fake-collector");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/api/traces";
+    }
+
+    public long getSpans() {
+        return spans.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.example.load;
+
+import com.sun.management.OperatingSystemMXBean;
+import com.sun.management.ThreadMXBean;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends GET requests to a URL from several threads for a given time, over keep-alive connections,
+ * and measures the throughput, the latency and the resources used by the JVM in the meantime
+ */
+public class LoadGenerator {
+
+    public static class Result {
+        private final long requests;
+        private final long errors;
+        private final double requestsPerSecond;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final double allocatedMegabytesPerSecond;
+        private final double cpuMillisPerRequest;
+
+        Result(long requests, long errors, double requestsPerSecond, long p50Micros, long p99Micros,
+               double allocatedMegabytesPerSecond, double cpuMillisPerRequest) {
+            this.requests = requests;
+            this.errors = errors;
+            this.requestsPerSecond = requestsPerSecond;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.allocatedMegabytesPerSecond = allocatedMegabytesPerSecond;
+            this.cpuMillisPerRequest = cpuMillisPerRequest;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public double getAllocatedMegabytesPerSecond() {
+            return allocatedMegabytesPerSecond;
+        }
+
+        public double getCpuMillisPerRequest() {
+            return cpuMillisPerRequest;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f req/s, p50 %d us, p99 %d us, %.1f MB/s allocated, %.3f ms CPU/request (%d requests, %d errors)",
+                    requestsPerSecond, p50Micros, p99Micros, allocatedMegabytesPerSecond, cpuMillisPerRequest, requests, errors);
+        }
+    }
+
+    private final URL url;
+    private final int threads;
+
+    public LoadGenerator(URL url, int threads) {
+        this.url = url;
+        this.threads = threads;
+    }
+
+    public Result run(long durationMillis) throws InterruptedException {
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        OperatingSystemMXBean osBean = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        List<Worker> workers = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Worker(deadline, done));
+        }
+
+        long allocatedBefore = allocatedBytes(threadBean);
+        long cpuBefore = osBean.getProcessCpuTime();
+        long start = System.nanoTime();
+        for (int i = 0; i < workers.size(); i++) {
+            Thread thread = new Thread(workers.get(i), "load-generator-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        long cpu = osBean.getProcessCpuTime() - cpuBefore;
+        long allocated = allocatedBytes(threadBean) - allocatedBefore;
+
+        long requests = 0;
+        long errors = 0;
+        for (Worker worker : workers) {
+            requests += worker.count;
+            errors += worker.errors;
+        }
+        long[] latencies = new long[(int) requests];
+        int position = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, position, worker.count);
+            position += worker.count;
+        }
+        Arrays.sort(latencies);
+
+        double seconds = elapsed / 1e9;
+        return new Result(requests, errors, requests / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99),
+                allocated / seconds / (1024 * 1024), requests == 0 ? 0 : cpu / 1e6 / requests);
+    }
+
+    /**
+     * Bytes allocated by the live threads of the JVM, which includes the threads of the server and of the reporter
+     */
+    private static long allocatedBytes(ThreadMXBean threadBean) {
+        long total = 0;
+        for (long allocated : threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMicros(sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)]);
+    }
+
+    private class Worker implements Runnable {
+        private final long deadline;
+        private final CountDownLatch done;
+        private final byte[] buffer = new byte[1024];
+        private long[] latencies = new long[16 * 1024];
+        private int count;
+        private long errors;
+
+        Worker(long deadline, CountDownLatch done) {
+            this.deadline = deadline;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long now;
+                while ((now = System.nanoTime()) < deadline) {
+                    if (request()) {
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - now;
+                    } else {
+                        errors++;
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private boolean request() {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                int status = connection.getResponseCode();
+                // read the body fully so that the connection goes back to the keep-alive cache
+                try (InputStream body = connection.getInputStream()) {
+                    while (body.read(buffer) >= 0) {
+                        // discard
+                    }
+                }
+                return status == 200;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+}
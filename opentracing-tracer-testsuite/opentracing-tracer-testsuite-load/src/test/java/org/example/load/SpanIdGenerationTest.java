@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.example.load;
+
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.reporters.NoopReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures how the creation of root spans, and therefore the generation of their trace and span IDs,
+ * scales from 1 to 64 threads sharing one tracer. The tracer draws IDs from the ThreadLocalRandom of the calling thread,
+ * the time per span of every thread should stay flat as long as there are enough cores.
+ *
+ * The number of spans created in total for every thread count can be set with the system property {@code ids.spans}.
+ * The figures are printed and not asserted on, they depend too much on the host
+ */
+public class SpanIdGenerationTest {
+
+    private static final int SPANS = Integer.getInteger("ids.spans", 2000000);
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    private final Tracer tracer = new Tracer.Builder("id-test", new NoopReporter(), new ConstSampler(false)).build();
+
+    @Test
+    public void testIdGenerationScales() throws Exception {
+        // compile the span creation before measuring any of the thread counts
+        run(4, SPANS / 4);
+
+        for (int threads : THREADS) {
+            long nanos = run(threads, SPANS / threads);
+            System.out.printf("%2d threads %6.1f ns per span and thread, %6.1f M spans/s%n",
+                    threads, (double) nanos / (SPANS / threads), SPANS * 1e3 / nanos);
+        }
+    }
+
+    /**
+     * @return the time the slowest thread took to create its spans, in nanoseconds
+     */
+    private long run(int threads, int spansPerThread) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong slowest = new AtomicLong();
+        AtomicLong sink = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long begin = System.nanoTime();
+                long ids = 0;
+                for (int n = 0; n < spansPerThread; n++) {
+                    ids ^= ((com.uber.jaeger.Span) tracer.buildSpan("span").start()).context().getTraceId();
+                }
+                long elapsed = System.nanoTime() - begin;
+                slowest.accumulateAndGet(elapsed, Math::max);
+                sink.addAndGet(ids);
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertThat(sink.get()).isNotZero();
+        return slowest.get();
+    }
+}
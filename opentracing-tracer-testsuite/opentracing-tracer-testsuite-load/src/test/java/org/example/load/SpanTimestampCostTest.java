@@ -0,0 +1,96 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.example.load;
+
+import com.uber.jaeger.Tracer;
+import com.uber.jaeger.reporters.NoopReporter;
+import com.uber.jaeger.samplers.ConstSampler;
+import com.uber.jaeger.utils.Clock;
+import com.uber.jaeger.utils.SystemClock;
+import me.snowdrop.opentracing.tracer.clocks.AnchoredClock;
+import me.snowdrop.opentracing.tracer.clocks.CachedClock;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the cost of reading the span timestamps with each of the clocks of opentracing.jaeger.clock.type,
+ * both for the reads a span performs on its own and for starting and finishing a whole span.
+ *
+ * The number of measured spans can be tuned with the system property {@code clock.spans}.
+ * The figures are printed, the test only fails when a clock stops timing the spans
+ */
+public class SpanTimestampCostTest {
+
+    private static final int SPANS = Integer.getInteger("clock.spans", 2000000);
+
+    @Test
+    public void testTimestampCostPerSpan() {
+        CachedClock cachedClock = new CachedClock(new AnchoredClock(60000), 1000);
+        try {
+            Clock[] clocks = {new SystemClock(), new AnchoredClock(60000), cachedClock};
+            String[] names = {"system", "anchored", "cached"};
+
+            // compile the code shared by all the clocks before measuring any of them
+            for (Clock clock : clocks) {
+                timestampNanos(clock);
+                spanNanos(clock);
+            }
+
+            for (int i = 0; i < clocks.length; i++) {
+                double timestamps = timestampNanos(clocks[i]);
+                double spans = spanNanos(clocks[i]);
+                System.out.printf("%-9s %6.1f ns of timestamps per span, %7.1f ns per span started and finished%n",
+                        names[i], timestamps, spans);
+                assertThat(timestamps).isPositive();
+            }
+        } finally {
+            cachedClock.close();
+        }
+    }
+
+    /**
+     * The reads of a span: the start time, the nano ticks when the clock is not accurate to the microsecond,
+     * and the same again on finish
+     */
+    private static double timestampNanos(Clock clock) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < SPANS; i++) {
+            sink += clock.currentTimeMicros();
+            if (!clock.isMicrosAccurate()) {
+                sink += clock.currentNanoTicks();
+                sink += clock.currentNanoTicks();
+            } else {
+                sink += clock.currentTimeMicros();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isNotZero();
+        return (double) elapsed / SPANS;
+    }
+
+    private static double spanNanos(Clock clock) {
+        Tracer tracer = new Tracer.Builder("clock-test", new NoopReporter(), new ConstSampler(true))
+                .withClock(clock)
+                .build();
+        long start = System.nanoTime();
+        for (int i = 0; i < SPANS / 4; i++) {
+            tracer.buildSpan("span").start().finish();
+        }
+        long elapsed = System.nanoTime() - start;
+        tracer.close();
+        return (double) elapsed / (SPANS / 4);
+    }
+}
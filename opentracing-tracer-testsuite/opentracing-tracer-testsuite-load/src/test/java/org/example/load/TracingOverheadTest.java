@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2018 Red Hat, Inc, and individual contributors.
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.example.load;
+
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URL;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the cost of tracing an endpoint that does nothing, by loading the same application
+ * with tracing disabled, with every trace sampled and with 1% of the traces sampled.
+ * The spans are sent to an in-process fake collector.
+ *
+ * The load can be tuned with the system properties {@code load.threads}, {@code load.warmup} and {@code load.duration}
+ * (in milliseconds). The build fails when tracing every request lowers the throughput or raises the CPU time
+ * per request by more than {@code load.max-overhead} (a ratio, 0.5 by default)
+ */
+public class TracingOverheadTest {
+
+    private static final int THREADS = Integer.getInteger("load.threads", 4);
+    private static final long WARMUP_MILLIS = Long.getLong("load.warmup", 2000);
+    private static final long DURATION_MILLIS = Long.getLong("load.duration", 3000);
+    private static final double MAX_OVERHEAD = Double.parseDouble(System.getProperty("load.max-overhead", "0.5"));
+
+    @Test
+    public void testTracingOverheadIsWithinBudget() throws Exception {
+        LoadGenerator.Result disabled;
+        LoadGenerator.Result sampled;
+        LoadGenerator.Result onePercent;
+
+        try (FakeCollector collector = new FakeCollector()) {
+            // compile the code shared by all the cases before measuring any of them
+            run("JVM warm-up", collector, "opentracing.jaeger.const-sampler.decision=true");
+
+            long spansBefore = collector.getSpans();
+            disabled = run("tracing disabled", collector, "opentracing.jaeger.enabled=false");
+            assertThat(collector.getSpans()).isEqualTo(spansBefore);
+
+            sampled = run("100% sampling", collector, "opentracing.jaeger.const-sampler.decision=true");
+            assertThat(collector.getSpans() - spansBefore).isGreaterThanOrEqualTo(sampled.getRequests());
+
+            onePercent = run("1% sampling", collector, "opentracing.jaeger.probabilistic-sampler.sampling-rate=0.01");
+        }
+
+        for (LoadGenerator.Result result : new LoadGenerator.Result[]{disabled, sampled, onePercent}) {
+            assertThat(result.getRequests()).isPositive();
+            assertThat(result.getErrors()).isZero();
+        }
+
+        double throughputOverhead = 1 - sampled.getRequestsPerSecond() / disabled.getRequestsPerSecond();
+        double cpuOverhead = sampled.getCpuMillisPerRequest() / disabled.getCpuMillisPerRequest() - 1;
+        System.out.printf("Overhead of 100%% sampling: %.1f%% throughput, %.1f%% CPU per request (budget %.1f%%)%n",
+                throughputOverhead * 100, cpuOverhead * 100, MAX_OVERHEAD * 100);
+
+        assertThat(throughputOverhead).as("throughput overhead").isLessThanOrEqualTo(MAX_OVERHEAD);
+        assertThat(cpuOverhead).as("CPU overhead").isLessThanOrEqualTo(MAX_OVERHEAD);
+    }
+
+    private static LoadGenerator.Result run(String name, FakeCollector collector, String... properties) throws Exception {
+        long spansBefore = collector.getSpans();
+        LoadGenerator.Result result;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LoadTestApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "opentracing.jaeger.service-name=load-test",
+                        "opentracing.jaeger.http-sender.url=" + collector.getUrl())
+                .properties(properties)
+                .run()) {
+            URL url = new URL("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/hello");
+            LoadGenerator generator = new LoadGenerator(url, THREADS);
+            generator.run(WARMUP_MILLIS);
+            result = generator.run(DURATION_MILLIS);
+        }
+        System.out.printf("%-16s %s, %d spans collected%n", name, result, collector.getSpans() - spansBefore);
+        return result;
+    }
+}